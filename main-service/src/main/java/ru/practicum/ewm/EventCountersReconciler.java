@@ -0,0 +1,30 @@
+package ru.practicum.ewm;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.ewm.repository.EventRepository;
+
+/**
+ * Periodically recounts the denormalized event counters from the requests and reactions tables and fixes any drift,
+ * e.g. after reactions cascade-deleted with their user or manual data changes that bypassed the services.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EventCountersReconciler {
+    private final EventRepository eventRepository;
+
+    @Scheduled(cron = "${ewm.counters.reconcile-cron}")
+    @Transactional
+    public void reconcile() {
+        int confirmedRequests = eventRepository.reconcileConfirmedRequests();
+        int reactions = eventRepository.reconcileReactions();
+        if (confirmedRequests > 0 || reactions > 0) {
+            log.warn("Corrected event counters: confirmed_requests for {} events, likes/dislikes for {} events",
+                    confirmedRequests, reactions);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package ru.practicum.ewm;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Bounded pool for lookups that an event read fans out next to its main query. When the queue is full a lookup runs
+ * on the calling thread, so overload degrades to sequential reads instead of failing them. A branch that does not
+ * finish within its timeout is given up and replaced by a fallback value; a branch that fails fails the read.
+ * <p>
+ * A database branch needs a second connection next to the one its caller's transaction holds, so at most half of
+ * the datasource pool is lent to such branches; beyond that a query runs inline on the caller's connection rather
+ * than queueing for a connection and running into its timeout.
+ */
+@Slf4j
+@Component
+public class EventLookupExecutor {
+    private final ThreadPoolExecutor executor;
+    private final ExecutorService monitored;
+    private final Semaphore connections;
+
+    @Autowired
+    public EventLookupExecutor(MeterRegistry meterRegistry,
+                               @Value("${ewm.lookup.threads}") int threads,
+                               @Value("${ewm.lookup.queue-capacity}") int queueCapacity,
+                               @Value("${spring.datasource.hikari.maximum-pool-size:10}") int connectionPoolSize) {
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "event-lookup");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        this.monitored = ExecutorServiceMetrics.monitor(meterRegistry, executor, "event.lookup");
+        this.connections = new Semaphore(Math.max(1, Math.min(threads, connectionPoolSize / 2)));
+    }
+
+    public <T> CompletableFuture<T> supply(Supplier<T> lookup) {
+        return CompletableFuture.supplyAsync(lookup, monitored);
+    }
+
+    /**
+     * Like {@link #supply} for a lookup that queries the database, which runs inline when no connection can be spared.
+     */
+    public <T> CompletableFuture<T> supplyQuery(Supplier<T> query) {
+        if (!connections.tryAcquire()) {
+            try {
+                return CompletableFuture.completedFuture(query.get());
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        return supply(() -> {
+            try {
+                return query.get();
+            } finally {
+                connections.release();
+            }
+        });
+    }
+
+    public <T> T join(CompletableFuture<T> branch, Duration timeout, T fallback, String name) {
+        try {
+            return branch.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Event lookup {} timed out after {}", name, timeout);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return fallback;
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdownNow();
+    }
+}
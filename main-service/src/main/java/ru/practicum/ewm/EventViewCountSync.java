@@ -0,0 +1,123 @@
+package ru.practicum.ewm;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.StatResult;
+import ru.practicum.dto.EventViewsRequestDto;
+import ru.practicum.dto.StatCountDto;
+import ru.practicum.ewm.model.Event;
+import ru.practicum.ewm.model.EventStatus;
+import ru.practicum.ewm.repository.EventRepository;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps {@code events.view_count} in step with stat-server so listings can sort and page by views in SQL.
+ * Each run asks stat-server which event pages were hit since the previous run (overlapping by {@code lag} to cover
+ * hits still being ingested) and recounts unique views only for those events. The point reached is stored in
+ * {@code view_count_sync}, so a restart resumes from it and only a fresh database starts from the beginning.
+ * The projection lags stat-server by at most one run, and a failed run is retried from the same point.
+ */
+@Slf4j
+@Component
+public class EventViewCountSync {
+    private static final Pattern EVENT_URI = Pattern.compile("/events/(\\d+)");
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private final StatRestClient restClient;
+    private final StatCircuitBreaker breaker;
+    private final EventRepository eventRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final String applicationName;
+    private final Duration lag;
+    private final int batchSize;
+    private LocalDateTime syncedUntil;
+
+    @Autowired
+    public EventViewCountSync(StatRestClient restClient, StatCircuitBreaker breaker, EventRepository eventRepository,
+                              JdbcTemplate jdbcTemplate, @Value("${spring.application.name}") String applicationName,
+                              @Value("${ewm.views.sync-lag}") Duration lag,
+                              @Value("${ewm.views.sync-batch-size}") int batchSize) {
+        this.restClient = restClient;
+        this.breaker = breaker;
+        this.eventRepository = eventRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.applicationName = applicationName;
+        this.lag = lag;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(cron = "${ewm.views.sync-cron}")
+    public synchronized void sync() {
+        if (syncedUntil == null) {
+            syncedUntil = loadSyncedUntil();
+        }
+        LocalDateTime end = LocalDateTime.now();
+        StatResult<List<StatCountDto>> hits = breaker.call(() -> restClient.getStats(syncedUntil, end, false, null));
+        if (!hits.isSuccess()) {
+            log.warn("Failed to load hit events since {}: {} {}", syncedUntil, hits.getStatus(), hits.getError());
+            return;
+        }
+        List<Long> ids = new ArrayList<>();
+        for (StatCountDto count : hits.orElse(List.of())) {
+            Matcher matcher = EVENT_URI.matcher(count.getUri());
+            if (applicationName.equals(count.getApp()) && matcher.matches()) {
+                try {
+                    ids.add(Long.valueOf(matcher.group(1)));
+                } catch (NumberFormatException e) {
+                    log.debug("Skipping hits of {}: not an event id", count.getUri());
+                }
+            }
+        }
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            if (!syncBatch(ids.subList(from, Math.min(from + batchSize, ids.size())), end)) {
+                return;
+            }
+        }
+        syncedUntil = end.minus(lag);
+        jdbcTemplate.update("insert into view_count_sync (app, synced_until) values (?, ?) " +
+                "on conflict (app) do update set synced_until = excluded.synced_until", applicationName,
+                Timestamp.valueOf(syncedUntil));
+        log.debug("Synced view counts of {} events", ids.size());
+    }
+
+    private LocalDateTime loadSyncedUntil() {
+        List<Timestamp> stored = jdbcTemplate.queryForList("select synced_until from view_count_sync where app = ?",
+                Timestamp.class, applicationName);
+        return stored.isEmpty() ? EPOCH : stored.get(0).toLocalDateTime();
+    }
+
+    private boolean syncBatch(List<Long> ids, LocalDateTime end) {
+        List<Long> published = new ArrayList<>(ids.size());
+        List<LocalDateTime> starts = new ArrayList<>(ids.size());
+        for (Event event : eventRepository.findByIdInAndState(ids, EventStatus.PUBLISHED)) {
+            published.add(event.getId());
+            starts.add(event.getPublishedOn());
+        }
+        if (published.isEmpty()) {
+            return true;
+        }
+        EventViewsRequestDto request = new EventViewsRequestDto(applicationName, Collections.min(starts), end, true,
+                published, starts);
+        StatResult<Map<Long, Long>> views = breaker.call(() -> restClient.getEventViews(request));
+        if (!views.isSuccess()) {
+            log.warn("Failed to load views of {} events: {} {}", published.size(), views.getStatus(), views.getError());
+            return false;
+        }
+        Map<Long, Long> counts = views.orElse(Map.of());
+        List<Object[]> updates = new ArrayList<>(published.size());
+        for (Long id : published) {
+            updates.add(new Object[]{counts.getOrDefault(id, 0L), id});
+        }
+        jdbcTemplate.batchUpdate("update events set view_count = ? where id = ?", updates);
+        return true;
+    }
+}
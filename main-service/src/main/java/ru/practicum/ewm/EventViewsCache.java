@@ -0,0 +1,166 @@
+package ru.practicum.ewm;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.dto.EventViewsRequestDto;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache of unique views per published event. A value younger than {@code refreshAfter} is served as is;
+ * an older one is still served while all such events of the request are reloaded in the background through the
+ * non-blocking client (stale-while-revalidate), unless it is older than {@code maxStale}, in which case it is
+ * reloaded together with the misses before the views are returned. If stat-server fails or its circuit is open,
+ * the last known values are served and events that were never loaded get no views.
+ */
+@Slf4j
+@Component
+public class EventViewsCache {
+    private final StatAsyncRestClient restClient;
+    private final StatCircuitBreaker breaker;
+    private final String applicationName;
+    private final long refreshAfterMillis;
+    private final long maxStaleMillis;
+    private final Cache<Long, Views> cache;
+    private final Set<Long> refreshing = ConcurrentHashMap.newKeySet();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong staleHits = new AtomicLong();
+    private final DistributionSummary staleness;
+
+    @Autowired
+    public EventViewsCache(StatAsyncRestClient restClient, StatCircuitBreaker breaker, MeterRegistry meterRegistry,
+                           @Value("${spring.application.name}") String applicationName,
+                           @Value("${stat-server.views.max-size}") long maxSize,
+                           @Value("${stat-server.views.refresh-after}") Duration refreshAfter,
+                           @Value("${stat-server.views.max-stale}") Duration maxStale) {
+        this.restClient = restClient;
+        this.breaker = breaker;
+        this.applicationName = applicationName;
+        this.refreshAfterMillis = refreshAfter.toMillis();
+        this.maxStaleMillis = maxStale.toMillis();
+        this.cache = Caffeine.newBuilder().maximumSize(maxSize).build();
+        FunctionCounter.builder("stat.views.cache.hits", hits, AtomicLong::get).register(meterRegistry);
+        FunctionCounter.builder("stat.views.cache.misses", misses, AtomicLong::get).register(meterRegistry);
+        FunctionCounter.builder("stat.views.cache.stale.hits", staleHits, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("stat.views.cache.hit.ratio", this, EventViewsCache::getHitRatio).register(meterRegistry);
+        Gauge.builder("stat.views.cache.size", cache, Cache::estimatedSize).register(meterRegistry);
+        this.staleness = DistributionSummary.builder("stat.views.cache.staleness").baseUnit("milliseconds")
+                .description("Age of the view counts served").register(meterRegistry);
+    }
+
+    /**
+     * Starts looking up views of an event by id alone, using the publication date remembered with its cached views;
+     * returns {@code null} if the event is not cached, so the caller has to load it first.
+     */
+    public CompletableFuture<Map<Long, Long>> getKnownViews(Long eventId) {
+        Views cached = cache.getIfPresent(eventId);
+        return cached == null ? null : getViewsAsync(Map.of(eventId, cached.publishedOn));
+    }
+
+    /**
+     * Starts looking up views of the given events, each counted from its publication date.
+     */
+    public CompletableFuture<Map<Long, Long>> getViewsAsync(Map<Long, LocalDateTime> publishedOn) {
+        long now = System.currentTimeMillis();
+        Map<Long, Long> views = new HashMap<>();
+        Map<Long, LocalDateTime> load = new HashMap<>();
+        Map<Long, LocalDateTime> refresh = new HashMap<>();
+        publishedOn.forEach((id, start) -> {
+            Views cached = cache.getIfPresent(id);
+            long age = cached == null ? Long.MAX_VALUE : now - cached.loadedAt;
+            if (age >= maxStaleMillis) {
+                misses.incrementAndGet();
+                load.put(id, start);
+                return;
+            }
+            hits.incrementAndGet();
+            staleness.record(age);
+            views.put(id, cached.views);
+            if (age >= refreshAfterMillis) {
+                staleHits.incrementAndGet();
+                if (refreshing.add(id)) {
+                    refresh.put(id, start);
+                }
+            }
+        });
+        if (!refresh.isEmpty()) {
+            load(refresh).whenComplete((loaded, error) -> refreshing.removeAll(refresh.keySet()));
+        }
+        if (load.isEmpty()) {
+            return CompletableFuture.completedFuture(views);
+        }
+        return load(load).thenApply(loaded -> {
+            if (loaded != null) {
+                views.putAll(loaded);
+                return views;
+            }
+            for (Long id : load.keySet()) {
+                Views cached = cache.getIfPresent(id);
+                if (cached != null) {
+                    staleness.record(now - cached.loadedAt);
+                    views.put(id, cached.views);
+                }
+            }
+            return views;
+        });
+    }
+
+    private double getHitRatio() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0 : (double) hits.get() / total;
+    }
+
+    /**
+     * Loads views without blocking and stores them; completes with {@code null} if stat-server could not answer.
+     */
+    private CompletableFuture<Map<Long, Long>> load(Map<Long, LocalDateTime> publishedOn) {
+        List<Long> ids = new ArrayList<>(publishedOn.size());
+        List<LocalDateTime> starts = new ArrayList<>(publishedOn.size());
+        publishedOn.forEach((id, start) -> {
+            ids.add(id);
+            starts.add(start);
+        });
+        LocalDateTime end = LocalDateTime.now();
+        EventViewsRequestDto request = new EventViewsRequestDto(applicationName, Collections.min(starts), end, true, ids, starts);
+        return breaker.callAsync(() -> restClient.getEventViews(request)).thenApply(result -> {
+            if (!result.isSuccess()) {
+                log.warn("Failed to load views of {} events: {} {}", ids.size(), result.getStatus(), result.getError());
+                return null;
+            }
+            long loadedAt = System.currentTimeMillis();
+            Map<Long, Long> views = new HashMap<>();
+            for (Long id : ids) {
+                long count = result.orElse(Collections.emptyMap()).getOrDefault(id, 0L);
+                views.put(id, count);
+                cache.put(id, new Views(count, publishedOn.get(id), loadedAt));
+            }
+            return views;
+        });
+    }
+
+    private static final class Views {
+        private final long views;
+        private final LocalDateTime publishedOn;
+        private final long loadedAt;
+
+        private Views(long views, LocalDateTime publishedOn, long loadedAt) {
+            this.views = views;
+            this.publishedOn = publishedOn;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
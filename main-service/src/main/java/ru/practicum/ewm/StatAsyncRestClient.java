@@ -0,0 +1,39 @@
+package ru.practicum.ewm;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.AsyncRestClient;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+
+@Component
+public class StatAsyncRestClient extends AsyncRestClient {
+
+    @Autowired
+    public StatAsyncRestClient(@Value("${stat-server.url}") String url, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                               @Value("${stat-server.async.max-connections}") int maxConnections,
+                               @Value("${stat-server.async.max-pending}") int maxPending,
+                               @Value("${stat-server.async.threads}") int threads,
+                               @Value("${stat-server.connect-timeout}") Duration connectTimeout,
+                               @Value("${stat-server.read-timeout}") Duration requestTimeout) {
+        super(url, objectMapper, maxConnections, maxPending, threads, connectTimeout, requestTimeout);
+        Gauge.builder("stat.client.connections.active", this, AsyncRestClient::getInFlight).register(meterRegistry);
+        Gauge.builder("stat.client.connections.max", this, AsyncRestClient::getMaxConnections).register(meterRegistry);
+        Gauge.builder("stat.client.requests.pending", this, AsyncRestClient::getPending).register(meterRegistry);
+        FunctionCounter.builder("stat.client.requests.completed", this, AsyncRestClient::getCompleted).register(meterRegistry);
+        FunctionCounter.builder("stat.client.requests.failed", this, AsyncRestClient::getFailed).register(meterRegistry);
+        FunctionCounter.builder("stat.client.requests.rejected", this, AsyncRestClient::getRejected).register(meterRegistry);
+    }
+
+    @PreDestroy
+    @Override
+    public void close() {
+        super.close();
+    }
+}
@@ -0,0 +1,137 @@
+package ru.practicum.ewm;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import ru.practicum.StatResult;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker for stat-server reads. After {@code failureThreshold} consecutive failures (5xx, timeouts,
+ * connection errors) calls are rejected without touching the network for {@code openDuration}; then a single
+ * trial call decides whether the circuit closes again or stays open for another period.
+ */
+@Slf4j
+@Component
+public class StatCircuitBreaker {
+    public enum State {
+        CLOSED,
+        HALF_OPEN,
+        OPEN
+    }
+
+    private static final String OPEN_ERROR = "stat-server circuit is open";
+    private final int failureThreshold;
+    private final long openNanos;
+    private final AtomicLong rejected = new AtomicLong();
+    private State state = State.CLOSED;
+    private int failures;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    @Autowired
+    public StatCircuitBreaker(MeterRegistry meterRegistry,
+                              @Value("${stat-server.breaker.failure-threshold}") int failureThreshold,
+                              @Value("${stat-server.breaker.open-duration}") Duration openDuration) {
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+        Gauge.builder("stat.breaker.state", this, breaker -> breaker.getState().ordinal())
+                .description("0 - closed, 1 - half-open, 2 - open").register(meterRegistry);
+        FunctionCounter.builder("stat.breaker.rejected", rejected, AtomicLong::get).register(meterRegistry);
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public <T> StatResult<T> call(Supplier<StatResult<T>> call) {
+        if (!tryAcquire()) {
+            rejected.incrementAndGet();
+            return StatResult.failure(HttpStatus.SERVICE_UNAVAILABLE, OPEN_ERROR);
+        }
+        StatResult<T> result;
+        try {
+            result = call.get();
+        } catch (RuntimeException e) {
+            onFailure();
+            throw e;
+        }
+        if (result.getStatus().is5xxServerError()) {
+            onFailure();
+        } else {
+            onSuccess();
+        }
+        return result;
+    }
+
+    public <T> CompletableFuture<StatResult<T>> callAsync(Supplier<CompletableFuture<StatResult<T>>> call) {
+        if (!tryAcquire()) {
+            rejected.incrementAndGet();
+            return CompletableFuture.completedFuture(StatResult.failure(HttpStatus.SERVICE_UNAVAILABLE, OPEN_ERROR));
+        }
+        CompletableFuture<StatResult<T>> result;
+        try {
+            result = call.get();
+        } catch (RuntimeException e) {
+            onFailure();
+            throw e;
+        }
+        return result.whenComplete((value, error) -> {
+            if (error != null || value.getStatus().is5xxServerError()) {
+                onFailure();
+            } else {
+                onSuccess();
+            }
+        });
+    }
+
+    private synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.nanoTime() - openedAt < openNanos) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                trialInFlight = true;
+                return true;
+            case HALF_OPEN:
+            default:
+                if (trialInFlight) {
+                    return false;
+                }
+                trialInFlight = true;
+                return true;
+        }
+    }
+
+    private synchronized void onSuccess() {
+        if (state != State.CLOSED) {
+            log.info("stat-server circuit closed");
+        }
+        state = State.CLOSED;
+        failures = 0;
+        trialInFlight = false;
+    }
+
+    private synchronized void onFailure() {
+        trialInFlight = false;
+        if (state == State.HALF_OPEN || ++failures >= failureThreshold) {
+            if (state != State.OPEN) {
+                log.warn("stat-server circuit opened after {} failures", failures);
+            }
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package ru.practicum.ewm;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.emitter.HitEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+
+@Component
+public class StatHitEmitter extends HitEmitter {
+
+    @Autowired
+    public StatHitEmitter(StatRestClient restClient, MeterRegistry meterRegistry,
+                          @Value("${stat-server.emitter.capacity}") int capacity,
+                          @Value("${stat-server.emitter.batch-size}") int batchSize,
+                          @Value("${stat-server.emitter.flush-interval}") Duration flushInterval,
+                          @Value("${stat-server.emitter.max-retries}") int maxRetries,
+                          @Value("${stat-server.emitter.initial-backoff}") Duration initialBackoff) {
+        super(restClient, capacity, batchSize, flushInterval, maxRetries, initialBackoff);
+        Gauge.builder("stat.emitter.hits.pending", this, HitEmitter::getPending).register(meterRegistry);
+        FunctionCounter.builder("stat.emitter.hits.sent", this, HitEmitter::getSent).register(meterRegistry);
+        FunctionCounter.builder("stat.emitter.hits.dropped", this, HitEmitter::getDropped).register(meterRegistry);
+        FunctionCounter.builder("stat.emitter.retries", this, HitEmitter::getRetries).register(meterRegistry);
+    }
+
+    @PostConstruct
+    @Override
+    public void start() {
+        super.start();
+    }
+
+    @PreDestroy
+    @Override
+    public void close() throws InterruptedException {
+        super.close();
+    }
+}
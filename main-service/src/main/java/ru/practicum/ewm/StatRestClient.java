@@ -6,11 +6,16 @@ import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.stereotype.Component;
 import ru.practicum.RestClient;
 
+import java.time.Duration;
+
 @Component
 public class StatRestClient extends RestClient {
 
     @Autowired
-    public StatRestClient(@Value("${stat-server.url}") String url, RestTemplateBuilder builder) {
-        super(url, builder);
+    public StatRestClient(@Value("${stat-server.url}") String url, RestTemplateBuilder builder,
+                          @Value("${stat-server.binary}") boolean binary,
+                          @Value("${stat-server.connect-timeout}") Duration connectTimeout,
+                          @Value("${stat-server.read-timeout}") Duration readTimeout) {
+        super(url, builder.setConnectTimeout(connectTimeout).setReadTimeout(readTimeout), binary);
     }
 }
\ No newline at end of file
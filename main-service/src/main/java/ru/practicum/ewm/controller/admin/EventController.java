@@ -13,6 +13,7 @@ import ru.practicum.ewm.dto.event.EventFullDto;
 import ru.practicum.ewm.dto.event.EventSortingTypes;
 import ru.practicum.ewm.dto.event.eventupdate.UpdateEventAdminRequestDto;
 import ru.practicum.ewm.model.EventStatus;
+import ru.practicum.ewm.pagination.CursorSlice;
 import ru.practicum.ewm.service.EventService;
 
 import javax.validation.constraints.Positive;
@@ -39,7 +40,8 @@ public class EventController {
                                                             @RequestParam(name = "rangeEnd", required = false) @DateTimeFormat(pattern = DATE_TIME_FORMAT_SS) LocalDateTime rangeEnd,
                                                             @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
                                                             @Positive @RequestParam(name = "size", defaultValue = "10") Integer size,
-                                                            @RequestParam(name = "sort", defaultValue = "EVENT_DATE") EventSortingTypes sort) {
+                                                            @RequestParam(name = "sort", defaultValue = "EVENT_DATE") EventSortingTypes sort,
+                                                            @RequestParam(name = "after", required = false) String after) {
         log.info("Getting User events id={}", users);
         List<EventStatus> eventStatuses = null;
         if (!CollectionUtils.isEmpty(states)) {
@@ -50,9 +52,9 @@ public class EventController {
                         "IllegalArgumentException: For input string: " + state)));
             }
         }
-        List<EventFullDto> eventsByFilters = eventService.getEventsForPrivateUsersWithFilters(users, eventStatuses, categories, rangeStart, rangeEnd, from,
-                size, null, sort);
-        return ResponseEntity.ok(eventsByFilters);
+        CursorSlice<EventFullDto> eventsByFilters = eventService.getEventsForPrivateUsersWithFilters(users, eventStatuses, categories,
+                rangeStart, rangeEnd, from, size, null, sort, after);
+        return eventsByFilters.toResponseEntity();
     }
 
     @PatchMapping("/{eventId}")
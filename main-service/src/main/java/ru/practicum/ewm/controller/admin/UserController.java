@@ -32,9 +32,10 @@ public class UserController {
     @GetMapping
     public ResponseEntity<List<UserDto>> getUsers(@RequestParam(name = "ids", required = false) List<Long> ids,
                                                   @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
-                                                  @Positive @RequestParam(name = "size", defaultValue = "10") Integer size) {
+                                                  @Positive @RequestParam(name = "size", defaultValue = "10") Integer size,
+                                                  @RequestParam(name = "after", required = false) String after) {
         log.info("Getting User with id={}", ids);
-        return ResponseEntity.ok(service.getUsers(ids, from, size));
+        return service.getUsers(ids, from, size, after).toResponseEntity();
     }
 
     @DeleteMapping("/{userId}")
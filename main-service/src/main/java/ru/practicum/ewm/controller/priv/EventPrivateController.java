@@ -79,9 +79,10 @@ public class EventPrivateController {
     public ResponseEntity<List<EventFullDto>> getUserEvents(@PathVariable(name = "userId") Long userId,
                                                             @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
                                                             @Positive @RequestParam(name = "size", defaultValue = "10") Integer size,
-                                                            @RequestParam(name = "sort", defaultValue = "EVENT_DATE") EventSortingTypes sort) {
+                                                            @RequestParam(name = "sort", defaultValue = "EVENT_DATE") EventSortingTypes sort,
+                                                            @RequestParam(name = "after", required = false) String after) {
         log.info("Getting User id={} events", userId);
-        return ResponseEntity.ok(eventService.getAllUserEvents(userId, from, size, sort));
+        return eventService.getAllUserEvents(userId, from, size, sort, after).toResponseEntity();
     }
 
     @PostMapping("/events/{eventId}/reaction")
@@ -111,16 +112,18 @@ public class EventPrivateController {
     @GetMapping("/events/{eventId}/reaction")
     public ResponseEntity<List<ReactionOnEventDto>> getReactionsOnEvent(@PathVariable(name = "eventId") Long eventId,
                                                                         @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
-                                                                        @Positive @RequestParam(name = "size", defaultValue = "10") Integer size) {
+                                                                        @Positive @RequestParam(name = "size", defaultValue = "10") Integer size,
+                                                                        @RequestParam(name = "after", required = false) String after) {
         log.info("Get user reactions to the event id={}", eventId);
-        return ResponseEntity.ok(ratingService.getReactionsOnEvent(eventId, from, size));
+        return ratingService.getReactionsOnEvent(eventId, from, size, after).toResponseEntity();
     }
 
     @GetMapping("/popular")
     public ResponseEntity<List<UserRatingDto>> getMostRatingUsersSinceEventPublishDate(@PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
                                                                                        @Positive @RequestParam(name = "size", defaultValue = "10") Integer size,
-                                                                                       @RequestParam(name = "eventDate", required = false) @DateTimeFormat(pattern = DATE_TIME_FORMAT_SS) LocalDateTime eventPublishedDate) {
+                                                                                       @RequestParam(name = "eventDate", required = false) @DateTimeFormat(pattern = DATE_TIME_FORMAT_SS) LocalDateTime eventPublishedDate,
+                                                                                       @RequestParam(name = "after", required = false) String after) {
         log.info("Get the highest rated event initiators");
-        return ResponseEntity.ok(userService.getMostRatingUser(from, size, eventPublishedDate));
+        return userService.getMostRatingUser(from, size, eventPublishedDate, after).toResponseEntity();
     }
 }
\ No newline at end of file
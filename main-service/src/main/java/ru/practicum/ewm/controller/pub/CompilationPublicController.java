@@ -30,8 +30,9 @@ public class CompilationPublicController {
     @GetMapping()
     public ResponseEntity<List<CompilationDto>> getCompilations(@RequestParam(value = "pinned", required = false) Boolean pinned,
                                                                 @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
-                                                                @Positive  @RequestParam(name = "size", defaultValue = "10") Integer size) {
+                                                                @Positive  @RequestParam(name = "size", defaultValue = "10") Integer size,
+                                                                @RequestParam(name = "after", required = false) String after) {
         log.info("Getting categories from position={}, size={}", from, size);
-        return ResponseEntity.ok(service.getCompilations(pinned, from, size));
+        return service.getCompilations(pinned, from, size, after).toResponseEntity();
     }
 }
\ No newline at end of file
@@ -10,6 +10,7 @@ import org.springframework.web.bind.annotation.*;
 import ru.practicum.ewm.dto.event.EventFullDto;
 import ru.practicum.ewm.dto.event.EventShortDto;
 import ru.practicum.ewm.dto.event.EventSortingTypes;
+import ru.practicum.ewm.pagination.CursorSlice;
 import ru.practicum.ewm.service.EventService;
 
 import javax.servlet.http.HttpServletRequest;
@@ -38,6 +39,7 @@ public class EventPublicController {
                                                          @RequestParam(name = "sort", required = false) EventSortingTypes sort,
                                                          @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
                                                          @Positive @RequestParam(name = "size", defaultValue = "10") Integer size,
+                                                         @RequestParam(name = "after", required = false) String after,
                                                          HttpServletRequest request) {
         log.info("Getting events from position={}, size={}", from, size);
         eventService.addStatisticsToStatServer(request);
@@ -45,9 +47,9 @@ public class EventPublicController {
         if (rangeStart == null) {
             rangeStart = LocalDateTime.now();
         }
-        List<EventShortDto> events = eventService.getEventsForPublicUsersWithFilters(text, categories, paid, rangeStart, rangeEnd,
-                onlyAvailable, sort, from, size);
-        return ResponseEntity.ok(events);
+        CursorSlice<EventShortDto> events = eventService.getEventsForPublicUsersWithFilters(text, categories, paid, rangeStart, rangeEnd,
+                onlyAvailable, sort, from, size, after);
+        return events.toResponseEntity();
     }
 
     @GetMapping("/{id}")
@@ -59,8 +61,9 @@ public class EventPublicController {
 
     @GetMapping("/popular")
     public ResponseEntity<List<EventFullDto>> getMostRatingEvents(@PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
-                                                                  @Positive @RequestParam(name = "size", defaultValue = "10") Integer size) {
+                                                                  @Positive @RequestParam(name = "size", defaultValue = "10") Integer size,
+                                                                  @RequestParam(name = "after", required = false) String after) {
         log.info("Getting the upcoming most popular events");
-        return ResponseEntity.ok(eventService.getMostRatingEvents(from, size));
+        return eventService.getMostRatingEvents(from, size, after).toResponseEntity();
     }
 }
\ No newline at end of file
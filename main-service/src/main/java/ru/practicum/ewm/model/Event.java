@@ -1,7 +1,6 @@
 package ru.practicum.ewm.model;
 
 import lombok.*;
-import org.hibernate.annotations.Formula;
 
 import javax.persistence.*;
 import java.time.LocalDateTime;
@@ -46,12 +45,22 @@ public class Event {
     private EventStatus state;
     @Column(nullable = false, length = 120)
     private String title;
-    @Formula("(select count(r.id) from requests r where r.event_id = id and r.status = 'CONFIRMED')")
-    private Long confirmedRequests;
-    @Formula("(select count(b.id) - count(c.id) from event_likes a " +
-            "left join event_likes b on a.id=b.id and b.reaction = 'LIKE' " +
-            "left join event_likes c on a.id=c.id and c.reaction = 'DISLIKE' " +
-            "where a.id_event = id " +
-            ")")
+    /**
+     * Denormalized counters below change only through the {@code EventRepository} counter updates in the same
+     * transaction as the request or reaction, so a stale entity never writes them back.
+     */
+    @Column(name = "confirmed_requests", nullable = false, updatable = false)
+    private Long confirmedRequests = 0L;
+    @Column(nullable = false, updatable = false)
+    private Long likes = 0L;
+    @Column(nullable = false, updatable = false)
+    private Long dislikes = 0L;
+    @Column(insertable = false, updatable = false)
     private Long rating;
+    /**
+     * Unique views as of the last {@code EventViewCountSync} run, used for sorting; responses take fresher views
+     * from stat-server.
+     */
+    @Column(name = "view_count", nullable = false, updatable = false)
+    private Long viewCount = 0L;
 }
\ No newline at end of file
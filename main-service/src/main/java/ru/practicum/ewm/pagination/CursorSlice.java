@@ -0,0 +1,37 @@
+package ru.practicum.ewm.pagination;
+
+import lombok.Value;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A page of a listing without a total count, with the cursor of the next page if there is one.
+ * Controllers return the content as before and pass the cursor in the {@value #NEXT_CURSOR_HEADER} header.
+ */
+@Value
+public class CursorSlice<T> {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    List<T> content;
+    String nextCursor;
+
+    public static <E, T> CursorSlice<T> of(Slice<E> slice, List<T> content, Function<E, PageCursor> cursor) {
+        List<E> rows = slice.getContent();
+        String next = slice.hasNext() && !rows.isEmpty() ? cursor.apply(rows.get(rows.size() - 1)).encode() : null;
+        return new CursorSlice<>(content, next);
+    }
+
+    public static <T> CursorSlice<T> last(List<T> content) {
+        return new CursorSlice<>(content, null);
+    }
+
+    public ResponseEntity<List<T>> toResponseEntity() {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (nextCursor != null) {
+            response.header(NEXT_CURSOR_HEADER, nextCursor);
+        }
+        return response.body(content);
+    }
+}
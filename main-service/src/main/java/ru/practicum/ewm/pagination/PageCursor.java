@@ -0,0 +1,64 @@
+package ru.practicum.ewm.pagination;
+
+import lombok.Value;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque keyset position: the sort key and id of the last row of a page, plus the name of the order it belongs to.
+ * The next page seeks past this position instead of skipping rows with OFFSET, so it costs the same at any depth.
+ */
+@Value
+public class PageCursor {
+    private static final String SEPARATOR = "\n";
+    String order;
+    long id;
+    Long number;
+    LocalDateTime date;
+
+    public static PageCursor ofId(String order, long id) {
+        return new PageCursor(order, id, null, null);
+    }
+
+    public static PageCursor ofNumber(String order, Long number, long id) {
+        return new PageCursor(order, id, number, null);
+    }
+
+    public static PageCursor ofDate(String order, LocalDateTime date, long id) {
+        return new PageCursor(order, id, null, date);
+    }
+
+    /**
+     * Decodes a cursor issued for the given order; returns {@code null} if there is none.
+     */
+    public static PageCursor decode(String value, String order) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        PageCursor cursor;
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8).split(SEPARATOR, -1);
+            if (parts.length != 4) {
+                throw new IllegalArgumentException("Invalid cursor: " + value);
+            }
+            cursor = new PageCursor(parts[0], Long.parseLong(parts[1]),
+                    parts[2].isEmpty() ? null : Long.valueOf(parts[2]),
+                    parts[3].isEmpty() ? null : LocalDateTime.parse(parts[3]));
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + value, e);
+        }
+        if (!cursor.order.equals(order)) {
+            throw new IllegalArgumentException("Cursor was issued for order " + cursor.order + ", not " + order);
+        }
+        return cursor;
+    }
+
+    public String encode() {
+        String value = order + SEPARATOR + id + SEPARATOR + (number == null ? "" : number) + SEPARATOR +
+                (date == null ? "" : date);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
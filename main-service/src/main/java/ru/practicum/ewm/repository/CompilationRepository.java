@@ -1,15 +1,18 @@
 package ru.practicum.ewm.repository;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.practicum.ewm.model.Compilation;
+import ru.practicum.ewm.pagination.PageCursor;
 
 public interface CompilationRepository extends JpaRepository<Compilation, Long> {
     @Query("select c " +
             "from Compilation c " +
-            "where (?1 is null or c.pinned = ?1)"
+            "where (:pinned is null or c.pinned = :pinned) " +
+            "and (:#{#after == null} = true or c.id < :#{#after?.id})"
     )
-    Page<Compilation> getCompilations(Boolean pinned, Pageable page);
+    Slice<Compilation> getCompilations(@Param("pinned") Boolean pinned, @Param("after") PageCursor after, Pageable page);
 }
\ No newline at end of file
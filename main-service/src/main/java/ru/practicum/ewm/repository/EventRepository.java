@@ -1,12 +1,15 @@
 package ru.practicum.ewm.repository;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import ru.practicum.ewm.model.Event;
 import ru.practicum.ewm.model.EventStatus;
+import ru.practicum.ewm.pagination.PageCursor;
+import ru.practicum.ewm.search.EventText;
 
 import java.time.LocalDateTime;
 import java.util.*;
@@ -22,6 +25,8 @@ public interface EventRepository extends JpaRepository<Event, Long> {
 
     Optional<Event> findByIdAndState(Long eventId, EventStatus state);
 
+    List<Event> findByIdInAndState(Collection<Long> eventIds, EventStatus state);
+
     @Query("select a from Event a " +
             "where (:#{#userIds == null} = true or a.initiator.id in :userIds) " +
             "and (:#{#categories == null} = true or a.category.id in :categories) " +
@@ -31,11 +36,17 @@ public interface EventRepository extends JpaRepository<Event, Long> {
             "or ( " +
             "(:#{#rangeStart == null} = true or a.eventDate >= :rangeStart) and (:#{#rangeEnd == null} = true or a.eventDate <= :rangeEnd)) " +
             ") " +
-            "and (:#{#eventId == null} = true or a.id = :eventId) "
+            "and (:#{#eventId == null} = true or a.id = :eventId) " +
+            "and (:#{#after == null} = true " +
+            "or (:#{#after?.order} = 'EVENT_DATE_DESC' " +
+            "and (a.eventDate < :#{#after?.date} or (a.eventDate = :#{#after?.date} and a.id < :#{#after?.id}))) " +
+            "or (:#{#after?.order} = 'RATING' " +
+            "and (a.rating < :#{#after?.number} or (a.rating = :#{#after?.number} and a.id < :#{#after?.id}))))"
     )
-    Page<Event> getEventsForPrivateUsers(@Param("userIds") List<Long> userIds, @Param("eventStatuses") List<EventStatus> eventStatuses,
-                                         @Param("categories") List<Integer> categories, @Param("rangeStart") LocalDateTime rangeStart,
-                                         @Param("rangeEnd") LocalDateTime rangeEnd, @Param("eventId") Long eventId, Pageable page);
+    Slice<Event> getEventsForPrivateUsers(@Param("userIds") List<Long> userIds, @Param("eventStatuses") List<EventStatus> eventStatuses,
+                                          @Param("categories") List<Integer> categories, @Param("rangeStart") LocalDateTime rangeStart,
+                                          @Param("rangeEnd") LocalDateTime rangeEnd, @Param("eventId") Long eventId,
+                                          @Param("after") PageCursor after, Pageable page);
 
 
     @Query("select a from Event a " +
@@ -50,12 +61,125 @@ public interface EventRepository extends JpaRepository<Event, Long> {
             "or ( " +
             "(:#{#rangeStart == null} = true or a.eventDate >= :rangeStart) and (:#{#rangeEnd == null} = true or a.eventDate <= :rangeEnd)) " +
             ") " +
-            "and (:#{#onlyAvailable == false} = true or a.confirmedRequests < a.participantLimit)"
+            "and (:#{#onlyAvailable == false} = true or a.confirmedRequests < a.participantLimit) " +
+            "and (:#{#ids == null} = true or a.id in :ids) " +
+            "and (:#{#after == null} = true " +
+            "or (:#{#after?.order} = 'ID' and a.id < :#{#after?.id}) " +
+            "or (:#{#after?.order} = 'VIEWS' " +
+            "and (a.viewCount < :#{#after?.number} or (a.viewCount = :#{#after?.number} and a.id < :#{#after?.id}))) " +
+            "or (:#{#after?.order} = 'EVENT_DATE_ASC' " +
+            "and (a.eventDate > :#{#after?.date} or (a.eventDate = :#{#after?.date} and a.id > :#{#after?.id}))))"
+    )
+    Slice<Event> getEventsForPublicUsers(@Param("texts") String texts, @Param("categories") List<Integer> categories,
+                                         @Param("paid") Boolean paid, @Param("rangeStart") LocalDateTime rangeStart,
+                                         @Param("rangeEnd") LocalDateTime rangeEnd, @Param("onlyAvailable") Boolean onlyAvailable,
+                                         @Param("ids") Collection<Long> ids, @Param("after") PageCursor after, Pageable page);
+
+    /**
+     * Full-text search over published events using the GIN-indexed {@code search_vector}; {@code query} is a
+     * {@code to_tsquery} expression. Matches are ordered by {@code sort} ({@code VIEWS}, {@code EVENT_DATE}
+     * or empty), then by rank with title matches weighted above annotation and description.
+     */
+    @Query(value = "select e.* from events e " +
+            "where e.state = 'PUBLISHED' " +
+            "and e.search_vector @@ to_tsquery('russian', :query) " +
+            "and (:anyCategory = true or e.category_id in (:categories)) " +
+            "and (:anyPaid = true or e.paid = :paid) " +
+            "and e.event_date >= :rangeStart and e.event_date <= :rangeEnd " +
+            "and (:onlyAvailable = false or e.confirmed_requests < e.participant_limit) " +
+            "order by case when :sort = 'VIEWS' then e.view_count end desc, " +
+            "case when :sort = 'EVENT_DATE' then e.event_date end, " +
+            "ts_rank(e.search_vector, to_tsquery('russian', :query)) desc, e.id desc " +
+            "limit :limit offset :offset",
+            nativeQuery = true
+    )
+    List<Event> searchPublishedEvents(@Param("query") String query, @Param("anyCategory") boolean anyCategory,
+                                      @Param("categories") List<Integer> categories, @Param("anyPaid") boolean anyPaid,
+                                      @Param("paid") boolean paid, @Param("rangeStart") LocalDateTime rangeStart,
+                                      @Param("rangeEnd") LocalDateTime rangeEnd, @Param("onlyAvailable") boolean onlyAvailable,
+                                      @Param("sort") String sort, @Param("limit") int limit, @Param("offset") long offset);
+
+    /**
+     * Pages the published events among {@code ids} that pass the public filters, keeping the order of {@code ids}.
+     */
+    @Query(value = "select e.* from events e " +
+            "where e.state = 'PUBLISHED' " +
+            "and e.id in (:ids) " +
+            "and (:anyCategory = true or e.category_id in (:categories)) " +
+            "and (:anyPaid = true or e.paid = :paid) " +
+            "and e.event_date >= :rangeStart and e.event_date <= :rangeEnd " +
+            "and (:onlyAvailable = false or e.confirmed_requests < e.participant_limit) " +
+            "order by array_position(array[:ids], e.id) " +
+            "limit :limit offset :offset",
+            nativeQuery = true
+    )
+    List<Event> findPublishedEventsInOrder(@Param("ids") List<Long> ids, @Param("anyCategory") boolean anyCategory,
+                                           @Param("categories") List<Integer> categories, @Param("anyPaid") boolean anyPaid,
+                                           @Param("paid") boolean paid, @Param("rangeStart") LocalDateTime rangeStart,
+                                           @Param("rangeEnd") LocalDateTime rangeEnd, @Param("onlyAvailable") boolean onlyAvailable,
+                                           @Param("limit") int limit, @Param("offset") long offset);
+
+    @Query("select new ru.practicum.ewm.search.EventText(a.id, a.title, a.annotation, a.description) from Event a " +
+            "where a.state = 'PUBLISHED' and a.id > :afterId " +
+            "order by a.id"
+    )
+    List<EventText> findPublishedTexts(@Param("afterId") long afterId, Pageable page);
+
+    @Query("select a from Event a " +
+            "where a.eventDate > :startTime and a.state = :state " +
+            "and (:#{#after == null} = true " +
+            "or a.rating < :#{#after?.number} or (a.rating = :#{#after?.number} and a.id < :#{#after?.id}))"
     )
-    Page<Event> getEventsForPublicUsers(@Param("texts") String texts, @Param("categories") List<Integer> categories,
-                                        @Param("paid") Boolean paid, @Param("rangeStart") LocalDateTime rangeStart,
-                                        @Param("rangeEnd") LocalDateTime rangeEnd, @Param("onlyAvailable") Boolean onlyAvailable,
-                                        Pageable page);
+    Slice<Event> getUpcomingEvents(@Param("startTime") LocalDateTime startTime, @Param("state") EventStatus state,
+                                   @Param("after") PageCursor after, Pageable page);
 
-    Page<Event> findByEventDateGreaterThanAndState(LocalDateTime startTime, EventStatus state, Pageable page);
+    /**
+     * Adds {@code delta} confirmed requests unless that would exceed a non-zero participant limit.
+     * Returns the number of updated rows, 0 when the limit would be exceeded.
+     */
+    @Modifying
+    @Query("update Event a " +
+            "set a.confirmedRequests = a.confirmedRequests + :delta " +
+            "where a.id = :eventId " +
+            "and (a.participantLimit = 0 or a.confirmedRequests + :delta <= a.participantLimit)"
+    )
+    int addConfirmedRequests(@Param("eventId") Long eventId, @Param("delta") long delta);
+
+    @Modifying
+    @Query("update Event a " +
+            "set a.confirmedRequests = a.confirmedRequests - 1 " +
+            "where a.id = :eventId and a.confirmedRequests > 0"
+    )
+    int removeConfirmedRequest(@Param("eventId") Long eventId);
+
+    @Modifying
+    @Query("update Event a " +
+            "set a.likes = a.likes + :likes, a.dislikes = a.dislikes + :dislikes " +
+            "where a.id = :eventId"
+    )
+    int addReactions(@Param("eventId") Long eventId, @Param("likes") long likes, @Param("dislikes") long dislikes);
+
+    /**
+     * Resets every counter that drifted from the requests table and returns the number of corrected events.
+     */
+    @Modifying
+    @Query(value = "update events e set confirmed_requests = c.confirmed " +
+            "from (select e2.id, count(r.id) as confirmed from events e2 " +
+            "left join requests r on r.event_id = e2.id and r.status = 'CONFIRMED' " +
+            "group by e2.id) c " +
+            "where e.id = c.id and e.confirmed_requests <> c.confirmed",
+            nativeQuery = true
+    )
+    int reconcileConfirmedRequests();
+
+    @Modifying
+    @Query(value = "update events e set likes = c.likes, dislikes = c.dislikes " +
+            "from (select e2.id, count(l.id) filter (where l.reaction = 'LIKE') as likes, " +
+            "count(l.id) filter (where l.reaction = 'DISLIKE') as dislikes from events e2 " +
+            "left join event_likes l on l.id_event = e2.id " +
+            "group by e2.id) c " +
+            "where e.id = c.id and (e.likes <> c.likes or e.dislikes <> c.dislikes)",
+            nativeQuery = true
+    )
+    int reconcileReactions();
 }
\ No newline at end of file
@@ -1,9 +1,13 @@
 package ru.practicum.ewm.repository;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.practicum.ewm.model.ReactionOnEvent;
+import ru.practicum.ewm.pagination.PageCursor;
 
 import java.util.List;
 import java.util.Optional;
@@ -11,9 +15,14 @@ import java.util.Optional;
 public interface RatingRepository extends JpaRepository<ReactionOnEvent, Long> {
     Optional<ReactionOnEvent> findByParticipantIdAndEventId(Long userId, Long eventId);
 
+    @EntityGraph(attributePaths = "participant")
     List<ReactionOnEvent> findFirst3ByEventIdOrderByTimestampDesc(Long eventId);
 
-    Page<ReactionOnEvent> findByEventId(Long eventId, Pageable page);
+    @Query("select r from ReactionOnEvent r " +
+            "where r.event.id = :eventId " +
+            "and (:#{#after == null} = true or r.id < :#{#after?.id})"
+    )
+    Slice<ReactionOnEvent> getEventReactions(@Param("eventId") Long eventId, @Param("after") PageCursor after, Pageable page);
 
     List<ReactionOnEvent> findByParticipantIdAndEventIdIn(Long userId, List<Long> eventsId);
 }
\ No newline at end of file
@@ -1,21 +1,30 @@
 package ru.practicum.ewm.repository;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import ru.practicum.ewm.model.User;
+import ru.practicum.ewm.pagination.PageCursor;
 
 import java.time.LocalDateTime;
 
 public interface UserRepository extends JpaRepository<User, Long> {
 
+    @Query("select u from User u " +
+            "where (:#{#after == null} = true or u.id > :#{#after?.id})"
+    )
+    Slice<User> getUsers(@Param("after") PageCursor after, Pageable page);
+
     @Query("select u, sum(e.rating) as rate " +
             "from User u " +
             "inner join Event e on e.initiator = u and e.publishedOn > :eventDate " +
-            "group by u"
+            "group by u " +
+            "having (:#{#after == null} = true " +
+            "or sum(e.rating) < :#{#after?.number} or (sum(e.rating) = :#{#after?.number} and u.id < :#{#after?.id}))"
     )
-    Page<UserRating> getMostRateUser(@Param("eventDate") LocalDateTime eventPublishedDate, Pageable page);
+    Slice<UserRating> getMostRateUser(@Param("eventDate") LocalDateTime eventPublishedDate, @Param("after") PageCursor after,
+                                      Pageable page);
 
 }
\ No newline at end of file
@@ -0,0 +1,199 @@
+package ru.practicum.ewm.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.ewm.repository.EventRepository;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory trigram index of published events for infix and typo-tolerant text search.
+ * It is rebuilt on startup: published events are read in id order in batches, each batch is indexed on the rebuild
+ * pool and appended in order, and changes committed meanwhile are replayed onto the new index before it replaces
+ * the old one. Afterwards {@link #update} keeps it in step with each committed event change.
+ */
+@Slf4j
+@Component
+public class EventSearchIndex {
+    private final EventRepository eventRepository;
+    private final boolean enabled;
+    private final double threshold;
+    private final int maxCandidates;
+    private final int rebuildThreads;
+    private final int rebuildBatchSize;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private TrigramIndex index = new TrigramIndex();
+    private List<TextUpdate> pending;
+    private volatile boolean ready;
+
+    @Autowired
+    public EventSearchIndex(EventRepository eventRepository,
+                            @Value("${ewm.search.trigram.enabled}") boolean enabled,
+                            @Value("${ewm.search.trigram.threshold}") double threshold,
+                            @Value("${ewm.search.trigram.max-candidates}") int maxCandidates,
+                            @Value("${ewm.search.trigram.rebuild-threads}") int rebuildThreads,
+                            @Value("${ewm.search.trigram.rebuild-batch-size}") int rebuildBatchSize) {
+        this.eventRepository = eventRepository;
+        this.enabled = enabled;
+        this.threshold = threshold;
+        this.maxCandidates = maxCandidates;
+        this.rebuildThreads = rebuildThreads;
+        this.rebuildBatchSize = rebuildBatchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) {
+            Thread rebuilder = new Thread(this::rebuild, "event-search-rebuild");
+            rebuilder.setDaemon(true);
+            rebuilder.start();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Returns ids of published events matching the text, best matches first.
+     */
+    public List<Long> search(String text) {
+        lock.readLock().lock();
+        try {
+            return index.search(text, threshold, maxCandidates);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the indexed text of an event once the current transaction commits; {@code null} stands for
+     * an event that is not (or no longer) published.
+     */
+    public void update(long id, EventText before, EventText after) {
+        if (!enabled || Objects.equals(before, after)) {
+            return;
+        }
+        TextUpdate update = new TextUpdate(id, before, after);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(update);
+                }
+            });
+        } else {
+            apply(update);
+        }
+    }
+
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        long started = System.currentTimeMillis();
+        TrigramIndex rebuilt = new TrigramIndex();
+        int events = 0;
+        ExecutorService executor = Executors.newFixedThreadPool(rebuildThreads);
+        try {
+            Deque<Future<TrigramIndex.Batch>> batches = new ArrayDeque<>();
+            long afterId = 0;
+            List<EventText> texts;
+            while (!(texts = eventRepository.findPublishedTexts(afterId, PageRequest.of(0, rebuildBatchSize))).isEmpty()) {
+                afterId = texts.get(texts.size() - 1).getId();
+                events += texts.size();
+                List<EventText> batch = texts;
+                batches.add(executor.submit(() -> TrigramIndex.Batch.of(batch)));
+                while (batches.size() > rebuildThreads) {
+                    rebuilt.appendAll(batches.poll().get());
+                }
+            }
+            while (!batches.isEmpty()) {
+                rebuilt.appendAll(batches.poll().get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            discardPending();
+            return;
+        } catch (ExecutionException | RuntimeException e) {
+            log.error("Failed to rebuild the event search index", e);
+            discardPending();
+            return;
+        } finally {
+            executor.shutdownNow();
+        }
+        lock.writeLock().lock();
+        try {
+            pending.forEach(update -> update.applyTo(rebuilt));
+            pending = null;
+            index = rebuilt;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Indexed {} published events, {} trigrams in {} ms", events, rebuilt.getTrigramCount(),
+                System.currentTimeMillis() - started);
+    }
+
+    private void apply(TextUpdate update) {
+        lock.writeLock().lock();
+        try {
+            update.applyTo(index);
+            if (pending != null) {
+                pending.add(update);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void discardPending() {
+        lock.writeLock().lock();
+        try {
+            pending = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static final class TextUpdate {
+        private final long id;
+        private final EventText before;
+        private final EventText after;
+
+        private TextUpdate(long id, EventText before, EventText after) {
+            this.id = id;
+            this.before = before;
+            this.after = after;
+        }
+
+        /**
+         * Removes the old text before adding the new one, so replaying onto an index that already has either
+         * version still ends with the new one.
+         */
+        private void applyTo(TrigramIndex index) {
+            if (before != null) {
+                index.remove(id, before.getText());
+            }
+            if (after != null) {
+                index.add(id, after.getText());
+            }
+        }
+    }
+}
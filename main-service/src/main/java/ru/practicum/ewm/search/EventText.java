@@ -0,0 +1,23 @@
+package ru.practicum.ewm.search;
+
+import lombok.Value;
+import ru.practicum.ewm.model.Event;
+
+/**
+ * Searchable text of an event, loaded without the rest of the entity when the index is rebuilt.
+ */
+@Value
+public class EventText {
+    long id;
+    String title;
+    String annotation;
+    String description;
+
+    public static EventText of(Event event) {
+        return new EventText(event.getId(), event.getTitle(), event.getAnnotation(), event.getDescription());
+    }
+
+    public String getText() {
+        return title + " " + annotation + " " + description;
+    }
+}
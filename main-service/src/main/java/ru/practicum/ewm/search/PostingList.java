@@ -0,0 +1,182 @@
+package ru.practicum.ewm.search;
+
+import java.util.Arrays;
+
+/**
+ * Sorted set of positive event ids stored as varint-encoded gaps. Ids above the current maximum are appended in
+ * place; any other change goes to small sorted add/remove buffers that are folded into the encoded run once they
+ * grow past a fraction of it, so out-of-order updates stay amortized O(1) per id instead of re-encoding each time.
+ */
+class PostingList {
+    private static final long[] EMPTY = new long[0];
+    private static final int MIN_BUFFER = 32;
+    private byte[] data = new byte[8];
+    private int length;
+    private int size;
+    private long last;
+    private long[] added = EMPTY;
+    private long[] removed = EMPTY;
+
+    void add(long id) {
+        removed = without(removed, id);
+        if (id > last && added.length == 0) {
+            append(id);
+            return;
+        }
+        added = with(added, id);
+        compactIfNeeded();
+    }
+
+    void remove(long id) {
+        added = without(added, id);
+        if (id <= last) {
+            removed = with(removed, id);
+            compactIfNeeded();
+        }
+    }
+
+    boolean isEmpty() {
+        return new Cursor().next() == 0;
+    }
+
+    /**
+     * Appends ids that are all greater than every id in the list, in ascending order.
+     */
+    void appendAll(long[] ids, int count) {
+        if (added.length > 0 || removed.length > 0) {
+            compact();
+        }
+        for (int i = 0; i < count; i++) {
+            append(ids[i]);
+        }
+    }
+
+    Cursor cursor() {
+        return new Cursor();
+    }
+
+    long[] toArray() {
+        long[] ids = new long[size + added.length];
+        int count = 0;
+        Cursor cursor = new Cursor();
+        for (long id = cursor.next(); id > 0; id = cursor.next()) {
+            ids[count++] = id;
+        }
+        return count == ids.length ? ids : Arrays.copyOf(ids, count);
+    }
+
+    private void append(long id) {
+        long gap = id - last;
+        if (length + 10 > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, length + 10));
+        }
+        while ((gap & ~0x7FL) != 0) {
+            data[length++] = (byte) ((gap & 0x7F) | 0x80);
+            gap >>>= 7;
+        }
+        data[length++] = (byte) gap;
+        last = id;
+        size++;
+    }
+
+    private void compactIfNeeded() {
+        if (added.length + removed.length > Math.max(MIN_BUFFER, size >>> 4)) {
+            compact();
+        }
+    }
+
+    private void compact() {
+        long[] ids = toArray();
+        data = new byte[Math.max(8, length)];
+        length = 0;
+        size = 0;
+        last = 0;
+        added = EMPTY;
+        removed = EMPTY;
+        for (long id : ids) {
+            append(id);
+        }
+    }
+
+    private static long[] with(long[] ids, long id) {
+        int index = Arrays.binarySearch(ids, id);
+        if (index >= 0) {
+            return ids;
+        }
+        index = -index - 1;
+        long[] result = new long[ids.length + 1];
+        System.arraycopy(ids, 0, result, 0, index);
+        result[index] = id;
+        System.arraycopy(ids, index, result, index + 1, ids.length - index);
+        return result;
+    }
+
+    private static long[] without(long[] ids, long id) {
+        int index = Arrays.binarySearch(ids, id);
+        if (index < 0) {
+            return ids;
+        }
+        if (ids.length == 1) {
+            return EMPTY;
+        }
+        long[] result = new long[ids.length - 1];
+        System.arraycopy(ids, 0, result, 0, index);
+        System.arraycopy(ids, index + 1, result, index, ids.length - index - 1);
+        return result;
+    }
+
+    /**
+     * Iterates the ids in ascending order; {@link #next()} returns 0 once exhausted.
+     */
+    class Cursor {
+        private int position;
+        private long base;
+        private long encoded = -1;
+        private int addedIndex;
+        private int removedIndex;
+
+        long next() {
+            while (true) {
+                if (encoded == -1) {
+                    encoded = decode();
+                }
+                long extra = addedIndex < added.length ? added[addedIndex] : 0;
+                if (encoded == 0 && extra == 0) {
+                    return 0;
+                }
+                if (encoded == 0 || (extra != 0 && extra < encoded)) {
+                    addedIndex++;
+                    return extra;
+                }
+                long id = encoded;
+                encoded = -1;
+                if (extra == id) {
+                    addedIndex++;
+                }
+                while (removedIndex < removed.length && removed[removedIndex] < id) {
+                    removedIndex++;
+                }
+                if (removedIndex < removed.length && removed[removedIndex] == id) {
+                    continue;
+                }
+                return id;
+            }
+        }
+
+        private long decode() {
+            if (position >= length) {
+                return 0;
+            }
+            long gap = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[position++];
+                gap |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            base += gap;
+            return base;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package ru.practicum.ewm.search;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Inverted index from word trigrams to the events containing them, in the manner of pg_trgm: every word is
+ * lower-cased and padded with two leading spaces and one trailing space before it is cut into trigrams.
+ * A query matches an event by the share of its own trigrams found in the event, so partial words and a typo or two
+ * still score high, while the length of the event text does not dilute the score. Not thread-safe.
+ */
+class TrigramIndex {
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private final Map<Long, PostingList> postings = new HashMap<>();
+
+    void add(long id, String text) {
+        for (long trigram : trigrams(text)) {
+            postings.computeIfAbsent(trigram, k -> new PostingList()).add(id);
+        }
+    }
+
+    void remove(long id, String text) {
+        for (long trigram : trigrams(text)) {
+            PostingList posting = postings.get(trigram);
+            if (posting != null) {
+                posting.remove(id);
+                if (posting.isEmpty()) {
+                    postings.remove(trigram);
+                }
+            }
+        }
+    }
+
+    /**
+     * Appends a batch whose ids are all greater than any id already in the index.
+     */
+    void appendAll(Batch batch) {
+        batch.postings.forEach((trigram, ids) ->
+                postings.computeIfAbsent(trigram, k -> new PostingList()).appendAll(ids.values, ids.size));
+    }
+
+    int getTrigramCount() {
+        return postings.size();
+    }
+
+    /**
+     * Returns up to {@code limit} ids of events sharing at least {@code threshold} of the query trigrams,
+     * best matches first and newer events first among equal matches.
+     */
+    List<Long> search(String query, double threshold, int limit) {
+        long[] trigrams = trigrams(query);
+        if (trigrams.length == 0) {
+            return List.of();
+        }
+        int required = Math.max(1, (int) Math.ceil(threshold * trigrams.length));
+        PriorityQueue<Head> heads = new PriorityQueue<>(Comparator.comparingLong(head -> head.id));
+        for (long trigram : trigrams) {
+            PostingList posting = postings.get(trigram);
+            if (posting != null) {
+                Head head = new Head(posting.cursor());
+                if (head.advance()) {
+                    heads.add(head);
+                }
+            }
+        }
+        if (heads.size() < required) {
+            return List.of();
+        }
+        Comparator<long[]> byScore = Comparator.<long[]>comparingLong(match -> match[1]).thenComparingLong(match -> match[0]);
+        PriorityQueue<long[]> best = new PriorityQueue<>(byScore);
+        while (heads.size() >= required) {
+            long id = heads.peek().id;
+            int count = 0;
+            while (!heads.isEmpty() && heads.peek().id == id) {
+                Head head = heads.poll();
+                count++;
+                if (head.advance()) {
+                    heads.add(head);
+                }
+            }
+            if (count >= required) {
+                best.add(new long[]{id, count});
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+        }
+        Long[] ids = new Long[best.size()];
+        for (int i = ids.length - 1; i >= 0; i--) {
+            ids[i] = best.poll()[0];
+        }
+        return Arrays.asList(ids);
+    }
+
+    /**
+     * Returns the distinct trigrams of the text in ascending order, each packed as three 16-bit chars.
+     */
+    static long[] trigrams(String text) {
+        if (text == null || text.isEmpty()) {
+            return new long[0];
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        long[] trigrams = new long[2 * lower.length() + 2];
+        int count = 0;
+        for (String word : WORD_SEPARATOR.split(lower)) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            String padded = "  " + word + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                trigrams[count++] = ((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2);
+            }
+        }
+        Arrays.sort(trigrams, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || trigrams[distinct - 1] != trigrams[i]) {
+                trigrams[distinct++] = trigrams[i];
+            }
+        }
+        return Arrays.copyOf(trigrams, distinct);
+    }
+
+    /**
+     * Postings of a run of events in ascending id order, built off the index and then appended to it.
+     */
+    static class Batch {
+        private final Map<Long, Ids> postings = new HashMap<>();
+
+        static Batch of(List<EventText> texts) {
+            Batch batch = new Batch();
+            for (EventText text : texts) {
+                for (long trigram : trigrams(text.getText())) {
+                    batch.postings.computeIfAbsent(trigram, k -> new Ids()).add(text.getId());
+                }
+            }
+            return batch;
+        }
+    }
+
+    private static class Ids {
+        private long[] values = new long[4];
+        private int size;
+
+        void add(long id) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = id;
+        }
+    }
+
+    private static class Head {
+        private final PostingList.Cursor cursor;
+        private long id;
+
+        Head(PostingList.Cursor cursor) {
+            this.cursor = cursor;
+        }
+
+        boolean advance() {
+            id = cursor.next();
+            return id != 0;
+        }
+    }
+}
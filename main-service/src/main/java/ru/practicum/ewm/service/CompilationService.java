@@ -3,8 +3,7 @@ package ru.practicum.ewm.service;
 import ru.practicum.ewm.dto.compilation.CompilationDto;
 import ru.practicum.ewm.dto.compilation.NewCompilationDto;
 import ru.practicum.ewm.dto.compilation.UpdateCompilationDto;
-
-import java.util.List;
+import ru.practicum.ewm.pagination.CursorSlice;
 
 public interface CompilationService {
     CompilationDto createCompilation(NewCompilationDto dto);
@@ -15,5 +14,5 @@ public interface CompilationService {
 
     CompilationDto getCompilation(Long compId);
 
-    List<CompilationDto> getCompilations(Boolean pinned, Integer from, Integer size);
+    CursorSlice<CompilationDto> getCompilations(Boolean pinned, Integer from, Integer size, String after);
 }
\ No newline at end of file
@@ -4,6 +4,7 @@ import ru.practicum.ewm.dto.event.*;
 import ru.practicum.ewm.dto.event.eventupdate.UpdateEventRequestDto;
 import ru.practicum.ewm.model.Event;
 import ru.practicum.ewm.model.EventStatus;
+import ru.practicum.ewm.pagination.CursorSlice;
 
 import javax.servlet.http.HttpServletRequest;
 import java.time.LocalDateTime;
@@ -21,19 +22,21 @@ public interface EventService {
 
     EventWithReactionFullDto updateEvent(Long userId, Long eventId, UpdateEventRequestDto dto);
 
-    List<EventFullDto> getAllUserEvents(Long userId, Integer from, Integer size, EventSortingTypes sort);
+    CursorSlice<EventFullDto> getAllUserEvents(Long userId, Integer from, Integer size, EventSortingTypes sort, String after);
 
-    List<EventFullDto> getEventsForPrivateUsersWithFilters(List<Long> userIds, List<EventStatus> eventStatus, List<Integer> categories,
-                                                           LocalDateTime rangeStart, LocalDateTime rangeEnd, Integer from, Integer size,
-                                                           Long eventId, EventSortingTypes sort);
+    CursorSlice<EventFullDto> getEventsForPrivateUsersWithFilters(List<Long> userIds, List<EventStatus> eventStatus,
+                                                                  List<Integer> categories, LocalDateTime rangeStart,
+                                                                  LocalDateTime rangeEnd, Integer from, Integer size,
+                                                                  Long eventId, EventSortingTypes sort, String after);
 
-    List<EventShortDto> getEventsForPublicUsersWithFilters(String text, List<Integer> categories, Boolean paid,
-                                                           LocalDateTime rangeStart, LocalDateTime rangeEnd, Boolean onlyAvailable,
-                                                           EventSortingTypes sort, Integer from, Integer size);
+    CursorSlice<EventShortDto> getEventsForPublicUsersWithFilters(String text, List<Integer> categories, Boolean paid,
+                                                                  LocalDateTime rangeStart, LocalDateTime rangeEnd,
+                                                                  Boolean onlyAvailable, EventSortingTypes sort,
+                                                                  Integer from, Integer size, String after);
 
     EventFullDto getPublishedEventById(Long id);
 
     void addStatisticsToStatServer(HttpServletRequest request);
 
-    List<EventFullDto> getMostRatingEvents(Integer from, Integer size);
+    CursorSlice<EventFullDto> getMostRatingEvents(Integer from, Integer size, String after);
 }
\ No newline at end of file
@@ -2,8 +2,7 @@ package ru.practicum.ewm.service;
 
 import ru.practicum.ewm.dto.ReactionOnEventDto;
 import ru.practicum.ewm.model.ReactionStatus;
-
-import java.util.List;
+import ru.practicum.ewm.pagination.CursorSlice;
 
 public interface RatingService {
 
@@ -13,6 +12,6 @@ public interface RatingService {
 
     void deleteReaction(Long userId, Long eventId);
 
-    List<ReactionOnEventDto> getReactionsOnEvent(Long eventId, Integer from, Integer size);
+    CursorSlice<ReactionOnEventDto> getReactionsOnEvent(Long eventId, Integer from, Integer size, String after);
 
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package ru.practicum.ewm.service;
 
 import ru.practicum.ewm.dto.user.UserDto;
 import ru.practicum.ewm.dto.user.UserRatingDto;
+import ru.practicum.ewm.pagination.CursorSlice;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -11,7 +12,7 @@ public interface UserService {
 
     void deleteUser(Long userId);
 
-    List<UserDto> getUsers(List<Long> ids, Integer from, Integer size);
+    CursorSlice<UserDto> getUsers(List<Long> ids, Integer from, Integer size, String after);
 
-    List<UserRatingDto> getMostRatingUser(Integer from, Integer size, LocalDateTime eventPublishedDate);
+    CursorSlice<UserRatingDto> getMostRatingUser(Integer from, Integer size, LocalDateTime eventPublishedDate, String after);
 }
\ No newline at end of file
@@ -14,6 +14,9 @@ import ru.practicum.ewm.exception.ObjectNotFoundException;
 import ru.practicum.ewm.mapper.CompilationMapper;
 import ru.practicum.ewm.model.Compilation;
 import ru.practicum.ewm.model.Event;
+import ru.practicum.ewm.pagination.CursorSlice;
+import ru.practicum.ewm.pagination.OffsetPageRequest;
+import ru.practicum.ewm.pagination.PageCursor;
 import ru.practicum.ewm.repository.CompilationRepository;
 import ru.practicum.ewm.repository.EventRepository;
 import ru.practicum.ewm.service.CompilationService;
@@ -27,6 +30,7 @@ import java.util.stream.Collectors;
 @Service
 @AllArgsConstructor
 public class CompilationServiceImpl implements CompilationService {
+    private static final String ORDER_COMPILATION_ID = "COMPILATION_ID";
     private final CompilationRepository compilationRepository;
     private final EventRepository eventRepository;
     private final CompilationMapper mapper;
@@ -87,11 +91,12 @@ public class CompilationServiceImpl implements CompilationService {
 
     @Transactional(readOnly = true)
     @Override
-    public List<CompilationDto> getCompilations(Boolean pinned, Integer from, Integer size) {
+    public CursorSlice<CompilationDto> getCompilations(Boolean pinned, Integer from, Integer size, String after) {
+        PageCursor cursor = PageCursor.decode(after, ORDER_COMPILATION_ID);
         Sort sortById = Sort.by(Sort.Direction.DESC, "id");
-        Pageable page = PageRequest.of(from / size, size, sortById);
-        Page<Compilation> compilationsPage = compilationRepository.getCompilations(pinned, page);
-        List<Compilation> allCompilations = compilationsPage.getContent();
+        Pageable page = OffsetPageRequest.of(from, size, sortById, cursor);
+        Slice<Compilation> compilationsSlice = compilationRepository.getCompilations(pinned, cursor, page);
+        List<Compilation> allCompilations = compilationsSlice.getContent();
 
         Map<Long, List<Long>> compilationIdWithItEventsId = new HashMap<>();
         Set<Event> allEvents = new HashSet<>();
@@ -117,7 +122,8 @@ public class CompilationServiceImpl implements CompilationService {
             compilationDto.setEvents(compilationEventDtos.stream()
                     .sorted(Comparator.comparing(EventShortDto::getEventDate).reversed()).collect(Collectors.toList()));
         }
-        return compilationDtos.stream()
-                .sorted(Comparator.comparing(CompilationDto::getId)).collect(Collectors.toList());
+        return CursorSlice.of(compilationsSlice, compilationDtos.stream()
+                        .sorted(Comparator.comparing(CompilationDto::getId)).collect(Collectors.toList()),
+                compilation -> PageCursor.ofId(ORDER_COMPILATION_ID, compilation.getId()));
     }
 }
\ No newline at end of file
@@ -1,20 +1,16 @@
 package ru.practicum.ewm.service.impl;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-
 import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.lang3.math.NumberUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.*;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.CollectionUtils;
-import ru.practicum.dto.StatCountDto;
 import ru.practicum.dto.StatDto;
-import ru.practicum.ewm.StatRestClient;
+import ru.practicum.ewm.EventLookupExecutor;
+import ru.practicum.ewm.EventViewsCache;
+import ru.practicum.ewm.StatHitEmitter;
 import ru.practicum.ewm.dto.RequestStatusUpdateStatuses;
 import ru.practicum.ewm.dto.event.*;
 import ru.practicum.ewm.dto.event.eventupdate.UpdateEventAdminRequestDto;
@@ -26,47 +22,72 @@ import ru.practicum.ewm.mapper.EventMapper;
 import ru.practicum.ewm.mapper.RatingMapper;
 import ru.practicum.ewm.mapper.RequestMapper;
 import ru.practicum.ewm.model.*;
+import ru.practicum.ewm.pagination.CursorSlice;
+import ru.practicum.ewm.pagination.OffsetPageRequest;
+import ru.practicum.ewm.pagination.PageCursor;
 import ru.practicum.ewm.repository.*;
+import ru.practicum.ewm.search.EventSearchIndex;
+import ru.practicum.ewm.search.EventText;
 import ru.practicum.ewm.service.EventService;
 
 import javax.servlet.http.HttpServletRequest;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
-import static ru.practicum.ewm.DateUtils.DATE_TIME_FORMATTER;
 
 @Service
 public class EventServiceImpl implements EventService {
-    private static final String EVENT_PATH = "/events/";
+    private static final Pattern SEARCH_WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final LocalDateTime SEARCH_MIN_DATE = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime SEARCH_MAX_DATE = LocalDateTime.of(9999, 12, 31, 0, 0);
+    private static final String ORDER_ID = "ID";
+    private static final String ORDER_VIEWS = "VIEWS";
+    private static final String ORDER_RATING = "RATING";
+    private static final String ORDER_EVENT_DATE_ASC = "EVENT_DATE_ASC";
+    private static final String ORDER_EVENT_DATE_DESC = "EVENT_DATE_DESC";
     private final EventRepository eventRepository;
     private final UserRepository userRepository;
     private final RequestRepository requestRepository;
     private final CategoryRepository categoryRepository;
     private final EventMapper mapper;
-    private final StatRestClient restClient;
-    private final ObjectMapper objectMapper;
+    private final EventViewsCache eventViewsCache;
+    private final StatHitEmitter hitEmitter;
     private final RequestMapper requestMapper;
     private final String applicationName;
     private final RatingRepository ratingRepository;
     private final RatingMapper ratingMapper;
+    private final EventLookupExecutor lookupExecutor;
+    private final EventSearchIndex searchIndex;
+    private final Duration viewsTimeout;
+    private final Duration reactionsTimeout;
 
     @Autowired
     public EventServiceImpl(EventRepository eventRepository, UserRepository userRepository, RequestRepository requestRepository,
-                            CategoryRepository categoryRepository, EventMapper mapper, StatRestClient restClient,
-                            ObjectMapper objectMapper, RequestMapper requestMapper, @Value("${spring.application.name}") String appName,
-                            RatingRepository ratingRepository, RatingMapper ratingMapper) {
+                            CategoryRepository categoryRepository, EventMapper mapper, EventViewsCache eventViewsCache, StatHitEmitter hitEmitter,
+                            RequestMapper requestMapper, @Value("${spring.application.name}") String appName,
+                            RatingRepository ratingRepository, RatingMapper ratingMapper, EventLookupExecutor lookupExecutor,
+                            EventSearchIndex searchIndex,
+                            @Value("${ewm.lookup.views-timeout}") Duration viewsTimeout,
+                            @Value("${ewm.lookup.reactions-timeout}") Duration reactionsTimeout) {
         this.eventRepository = eventRepository;
         this.userRepository = userRepository;
         this.requestRepository = requestRepository;
         this.categoryRepository = categoryRepository;
         this.mapper = mapper;
-        this.restClient = restClient;
-        this.objectMapper = objectMapper;
+        this.eventViewsCache = eventViewsCache;
+        this.hitEmitter = hitEmitter;
         this.requestMapper = requestMapper;
         this.applicationName = appName;
         this.ratingRepository = ratingRepository;
         this.ratingMapper = ratingMapper;
+        this.lookupExecutor = lookupExecutor;
+        this.searchIndex = searchIndex;
+        this.viewsTimeout = viewsTimeout;
+        this.reactionsTimeout = reactionsTimeout;
     }
 
     @Override
@@ -83,8 +104,9 @@ public class EventServiceImpl implements EventService {
         if (eventsForGenerationDto.size() > 0) {
             Set<Long> eventsId = eventsForGenerationDto.stream().map(Event::getId).collect(Collectors.toSet());
             List<Event> events = eventRepository.getEventsFromSet(eventsId);
+            CompletableFuture<Map<Long, Long>> views = getEventViewsAsync(events);
             List<EventShortDto> eventShortDtos = mapper.toEventShortDtos(events);
-            Map<Long, Long> eventViews = getEventViews(events);
+            Map<Long, Long> eventViews = joinViews(views);
             if (eventViews.size() > 0) {
                 for (EventShortDto dto : eventShortDtos) {
                     dto.setViews(eventViews.getOrDefault(dto.getId(), 0L));
@@ -97,35 +119,40 @@ public class EventServiceImpl implements EventService {
 
     @Transactional(readOnly = true)
     @Override
-    public List<EventFullDto> getMostRatingEvents(Integer from, Integer size) {
-        Sort sortByRating = Sort.by(Sort.Direction.DESC, "rating");
-        Pageable page = PageRequest.of(from / size, size, sortByRating);
-        Page<Event> eventsPage = eventRepository.findByEventDateGreaterThanAndState(LocalDateTime.now(), EventStatus.PUBLISHED, page);
-        List<Event> events = eventsPage.getContent();
+    public CursorSlice<EventFullDto> getMostRatingEvents(Integer from, Integer size, String after) {
+        PageCursor cursor = PageCursor.decode(after, ORDER_RATING);
+        Sort sortByRating = Sort.by(Sort.Direction.DESC, "rating", "id");
+        Pageable page = OffsetPageRequest.of(from, size, sortByRating, cursor);
+        Slice<Event> eventsSlice = eventRepository.getUpcomingEvents(LocalDateTime.now(), EventStatus.PUBLISHED, cursor, page);
+        List<Event> events = eventsSlice.getContent();
         if (events.size() > 0) {
+            CompletableFuture<Map<Long, Long>> views = getEventViewsAsync(events);
             List<EventFullDto> eventFullDtos = mapper.toEventFullDtos(events);
-            Map<Long, Long> eventViews = getEventViews(events);
+            Map<Long, Long> eventViews = joinViews(views);
             if (eventViews.size() > 0) {
                 for (EventFullDto dto : eventFullDtos) {
                     dto.setViews(eventViews.getOrDefault(dto.getId(), 0L));
                 }
             }
-            return eventFullDtos;
+            return CursorSlice.of(eventsSlice, eventFullDtos, event -> cursorOf(ORDER_RATING, event));
         }
-        return Collections.emptyList();
+        return CursorSlice.last(Collections.emptyList());
     }
 
     @Transactional(readOnly = true)
     @Override
     public EventWithReactionFullDto getUserEventById(Long userId, Long eventId) {
+        CompletableFuture<List<ReactionOnEvent>> reactions = getLastReactionsAsync(eventId);
+        CompletableFuture<Map<Long, Long>> knownViews = eventViewsCache.getKnownViews(eventId);
         Event event = eventRepository.findByIdAndInitiatorId(eventId, userId)
                 .orElseThrow(() -> new ObjectNotFoundException(String.format("Event with id=%d was not found", eventId)));
+        CompletableFuture<Map<Long, Long>> views = knownViews != null ? knownViews : getEventViewsAsync(List.of(event));
         EventWithReactionFullDto eventWithReactionFullDto = mapper.toEventWithReactionFullDto(event);
-        Map<Long, Long> eventViews = getEventViews(List.of(event));
+        Map<Long, Long> eventViews = joinViews(views);
         if (eventViews.containsKey(eventWithReactionFullDto.getId())) {
             eventWithReactionFullDto.setViews(eventViews.get(eventWithReactionFullDto.getId()));
         }
-        List<ReactionOnEvent> reactionsOnEvent = ratingRepository.findFirst3ByEventIdOrderByTimestampDesc(eventId);
+        List<ReactionOnEvent> reactionsOnEvent = lookupExecutor.join(reactions, reactionsTimeout, Collections.emptyList(), "reactions");
         eventWithReactionFullDto.setUserReactions(ratingMapper.toReactionOnEventDtos(reactionsOnEvent));
         return eventWithReactionFullDto;
     }
@@ -156,6 +183,10 @@ public class EventServiceImpl implements EventService {
         if (requestsForUpdate.size() != dto.getRequestIds().size()) {
             throw new ConstraintException("Request must have status PENDING");
         }
+        if (dto.getStatus() == RequestStatusUpdateStatuses.CONFIRMED &&
+                eventRepository.addConfirmedRequests(eventId, requestsForUpdate.size()) == 0) {
+            throw new ConstraintException("The participant limit has been reached");
+        }
         for (Request request : requestsForUpdate) {
             request.setStatus(RequestStatusUpdateStatuses.getRequestStatus(dto.getStatus()));
         }
@@ -182,8 +213,10 @@ public class EventServiceImpl implements EventService {
     @Override
     @Transactional
     public EventWithReactionFullDto updateEvent(Long userId, Long eventId, UpdateEventRequestDto dto) {
+        CompletableFuture<List<ReactionOnEvent>> reactions = getLastReactionsAsync(eventId);
         Event event = eventRepository.findById(eventId)
                 .orElseThrow(() -> new ObjectNotFoundException(String.format("Event with id=%d was not found", eventId)));
+        EventText indexedText = event.getState() == EventStatus.PUBLISHED ? EventText.of(event) : null;
 
         if (dto.getEventDate() != null && dto.getEventDate().minusHours(2).isBefore(LocalDateTime.now())) {
             throw new ConstraintException("Field: eventDate. Error: должно содержать дату, которая еще ненаступила. " +
@@ -246,103 +279,116 @@ public class EventServiceImpl implements EventService {
         if (!StringUtils.isBlank(dto.getTitle())) {
             event.setTitle(dto.getTitle());
         }
+        searchIndex.update(eventId, indexedText, event.getState() == EventStatus.PUBLISHED ? EventText.of(event) : null);
+        CompletableFuture<Map<Long, Long>> views = getEventViewsAsync(List.of(event));
         EventWithReactionFullDto eventWithReactionFullDto = mapper.toEventWithReactionFullDto(event);
-        Map<Long, Long> eventViews = getEventViews(List.of(event));
+        Map<Long, Long> eventViews = joinViews(views);
         if (eventViews.containsKey(eventWithReactionFullDto.getId())) {
             eventWithReactionFullDto.setViews(eventViews.get(eventWithReactionFullDto.getId()));
         }
-        List<ReactionOnEvent> reactionsOnEvent = ratingRepository.findFirst3ByEventIdOrderByTimestampDesc(eventId);
+        List<ReactionOnEvent> reactionsOnEvent = lookupExecutor.join(reactions, reactionsTimeout, Collections.emptyList(), "reactions");
         eventWithReactionFullDto.setUserReactions(ratingMapper.toReactionOnEventDtos(reactionsOnEvent));
         return eventWithReactionFullDto;
     }
 
     @Transactional(readOnly = true)
     @Override
-    public List<EventFullDto> getAllUserEvents(Long userId, Integer from, Integer size, EventSortingTypes sort) {
-        List<EventFullDto> eventDtos = getEventsForPrivateUsersWithFilters(List.of(userId), null, null, null, null, from, size, null, sort);
-        return eventDtos;
+    public CursorSlice<EventFullDto> getAllUserEvents(Long userId, Integer from, Integer size, EventSortingTypes sort, String after) {
+        return getEventsForPrivateUsersWithFilters(List.of(userId), null, null, null, null, from, size, null, sort, after);
     }
 
     @Transactional(readOnly = true)
     @Override
-    public List<EventFullDto> getEventsForPrivateUsersWithFilters(List<Long> userIds, List<EventStatus> eventStatus,
-                                                                  List<Integer> categories, LocalDateTime rangeStart,
-                                                                  LocalDateTime rangeEnd, Integer from, Integer size,
-                                                                  Long eventId, EventSortingTypes sort) {
+    public CursorSlice<EventFullDto> getEventsForPrivateUsersWithFilters(List<Long> userIds, List<EventStatus> eventStatus,
+                                                                         List<Integer> categories, LocalDateTime rangeStart,
+                                                                         LocalDateTime rangeEnd, Integer from, Integer size,
+                                                                         Long eventId, EventSortingTypes sort, String after) {
+        String order;
         Sort sortBy;
         if (sort == EventSortingTypes.RATING) {
-            sortBy = Sort.by(Sort.Direction.DESC, "rating");
+            order = ORDER_RATING;
+            sortBy = Sort.by(Sort.Direction.DESC, "rating", "id");
         } else {
-            sortBy = Sort.by(Sort.Direction.DESC, "eventDate");
-        }
-        Pageable page = PageRequest.of(from / size, size, sortBy);
-        Page<Event> eventsPage = eventRepository.getEventsForPrivateUsers(userIds, eventStatus, categories, rangeStart,
-                rangeEnd, eventId, page);
-        List<Event> events = eventsPage.getContent();
+            order = ORDER_EVENT_DATE_DESC;
+            sortBy = Sort.by(Sort.Direction.DESC, "eventDate", "id");
+        }
+        PageCursor cursor = PageCursor.decode(after, order);
+        Pageable page = OffsetPageRequest.of(from, size, sortBy, cursor);
+        Slice<Event> eventsSlice = eventRepository.getEventsForPrivateUsers(userIds, eventStatus, categories, rangeStart,
+                rangeEnd, eventId, cursor, page);
+        List<Event> events = eventsSlice.getContent();
+        CompletableFuture<Map<Long, Long>> views = getEventViewsAsync(events);
         List<EventFullDto> eventFullDtos = mapper.toEventFullDtos(events);
-        Map<Long, Long> eventViews = getEventViews(events);
+        Map<Long, Long> eventViews = joinViews(views);
         if (eventViews.size() > 0) {
             for (EventFullDto dto : eventFullDtos) {
                 dto.setViews(eventViews.getOrDefault(dto.getId(), 0L));
             }
         }
-        return eventFullDtos;
+        return CursorSlice.of(eventsSlice, eventFullDtos, event -> cursorOf(order, event));
     }
 
     @Transactional(readOnly = true)
     @Override
-    public List<EventShortDto> getEventsForPublicUsersWithFilters(String text, List<Integer> categories, Boolean paid,
-                                                                  LocalDateTime rangeStart, LocalDateTime rangeEnd,
-                                                                  Boolean onlyAvailable, EventSortingTypes sort,
-                                                                  Integer from, Integer size) {
+    public CursorSlice<EventShortDto> getEventsForPublicUsersWithFilters(String text, List<Integer> categories, Boolean paid,
+                                                                         LocalDateTime rangeStart, LocalDateTime rangeEnd,
+                                                                         Boolean onlyAvailable, EventSortingTypes sort,
+                                                                         Integer from, Integer size, String after) {
         if (!StringUtils.isBlank(text)) {
             text = text.trim().toLowerCase();
         }
-        Sort sortByEventDate = Sort.by(Sort.Direction.DESC, "id");
-        Pageable page = PageRequest.of(from / size, size, sortByEventDate);
-        Page<Event> eventPage = eventRepository.getEventsForPublicUsers(text, categories, paid, rangeStart,
-                rangeEnd, onlyAvailable, page);
-        List<Event> events = eventPage.getContent();
+        String query = toSearchQuery(text);
+        if (query != null && after != null) {
+            throw new IllegalArgumentException("Cursor pagination is not supported for text search");
+        }
+        Slice<Event> eventsSlice = null;
+        List<Event> events;
+        if (query != null) {
+            events = searchPublishedEvents(query, categories, paid, rangeStart, rangeEnd, onlyAvailable, sort, size, from);
+            if (events.isEmpty() && searchIndex.isReady() && (from == 0
+                    || searchPublishedEvents(query, categories, paid, rangeStart, rangeEnd, onlyAvailable, sort, 1, 0).isEmpty())) {
+                events = searchByTrigrams(text, categories, paid, rangeStart, rangeEnd, onlyAvailable, sort, from, size);
+            }
+        } else {
+            eventsSlice = getEventsForPublicUsers(text, categories, paid, rangeStart, rangeEnd, onlyAvailable, null, sort,
+                    from, size, after);
+            events = eventsSlice.getContent();
+        }
+        CompletableFuture<Map<Long, Long>> views = getEventViewsAsync(events);
         List<EventShortDto> eventShortDtos = mapper.toEventShortDtos(events);
-        Map<Long, Long> eventViews = getEventViews(events);
+        Map<Long, Long> eventViews = joinViews(views);
         if (eventViews.size() > 0) {
             for (EventShortDto dto : eventShortDtos) {
                 dto.setViews(eventViews.getOrDefault(dto.getId(), 0L));
             }
         }
-
-        Comparator<EventShortDto> comparing = Comparator.comparing(EventShortDto::getId);
-        if (sort != null)
-            switch (sort) {
-                case EVENT_DATE:
-                    comparing = Comparator.comparing(EventShortDto::getEventDate);
-                    break;
-                case VIEWS:
-                    comparing = Comparator.comparing(EventShortDto::getViews);
-                    break;
-            }
-        return eventShortDtos.stream().sorted(comparing).collect(Collectors.toList());
+        if (eventsSlice == null) {
+            return CursorSlice.last(eventShortDtos);
+        }
+        String order = publicOrder(sort);
+        return CursorSlice.of(eventsSlice, eventShortDtos, event -> cursorOf(order, event));
     }
 
     @Transactional(readOnly = true)
     @Override
     public EventFullDto getPublishedEventById(Long eventId) {
+        CompletableFuture<Map<Long, Long>> knownViews = eventViewsCache.getKnownViews(eventId);
         Event event = eventRepository.findByIdAndState(eventId, EventStatus.PUBLISHED)
                 .orElseThrow(() -> new ObjectNotFoundException(String.format("Event with id=%d was not found", eventId)));
+        CompletableFuture<Map<Long, Long>> views = knownViews != null ? knownViews : getEventViewsAsync(List.of(event));
         EventFullDto eventFullDto = mapper.toEventFullDto(event);
-        Map<Long, Long> eventViews = getEventViews(List.of(event));
+        Map<Long, Long> eventViews = joinViews(views);
         if (eventViews.containsKey(eventFullDto.getId())) {
             eventFullDto.setViews(eventViews.get(eventFullDto.getId()));
         }
         return eventFullDto;
     }
 
-    @Transactional(readOnly = true)
     @Override
     public void addStatisticsToStatServer(HttpServletRequest request) {
         StatDto statDto = new StatDto(applicationName, request.getRequestURI(), request.getRemoteAddr(),
-                LocalDateTime.now().format(DATE_TIME_FORMATTER));
-        restClient.post(statDto);
+                LocalDateTime.now());
+        hitEmitter.emit(statDto);
     }
 
     private void checkEventParametersWhenUserUpdateIt(Event event, UpdateEventUserRequestDto dto, Long userId) {
@@ -367,36 +413,110 @@ public class EventServiceImpl implements EventService {
         }
     }
 
-    private Map<Long, Long> getEventViews(List<Event> events) {
-        Set<Long> eventsId = events.stream().map(Event::getId).collect(Collectors.toSet());
-        LocalDateTime startCountEventViews = events.stream()
-                .filter(event -> event.getPublishedOn() != null)
-                .map(Event::getPublishedOn)
-                .min(LocalDateTime::compareTo).orElseGet(LocalDateTime::now);
-        return getStatsFromStatServer(startCountEventViews, LocalDateTime.now(), true, eventsId);
+    private Slice<Event> getEventsForPublicUsers(String text, List<Integer> categories, Boolean paid,
+                                                 LocalDateTime rangeStart, LocalDateTime rangeEnd, Boolean onlyAvailable,
+                                                 List<Long> ids, EventSortingTypes sort, Integer from, Integer size,
+                                                 String after) {
+        Sort sortBy;
+        if (sort == EventSortingTypes.VIEWS) {
+            sortBy = Sort.by(Sort.Direction.DESC, "viewCount", "id");
+        } else if (sort == EventSortingTypes.EVENT_DATE) {
+            sortBy = Sort.by(Sort.Direction.ASC, "eventDate", "id");
+        } else {
+            sortBy = Sort.by(Sort.Direction.DESC, "id");
+        }
+        PageCursor cursor = PageCursor.decode(after, publicOrder(sort));
+        Pageable page = OffsetPageRequest.of(from, size, sortBy, cursor);
+        return eventRepository.getEventsForPublicUsers(text, categories, paid, rangeStart, rangeEnd, onlyAvailable, ids,
+                cursor, page);
     }
 
-    public Map<Long, Long> getStatsFromStatServer(LocalDateTime start, LocalDateTime end, Boolean unique, Set<Long> uris) {
-        StringBuilder builder = new StringBuilder();
-        for (Long uri : uris) {
-            builder.append(EVENT_PATH + uri + ",");
-        }
-        ResponseEntity<Object[]> response = restClient.get(start, end, unique, builder.toString());
-        if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-            Object[] object = response.getBody();
-            List<StatCountDto> collect = Arrays.stream(object).map(o -> objectMapper.convertValue(o, StatCountDto.class))
-                    .filter(dto -> dto.getApp().equals(applicationName))
-                    .collect(Collectors.toList());
-            Map<Long, Long> resultMap = new HashMap<>();
-            for (StatCountDto dto : collect) {
-                Long id = NumberUtils.toLong(StringUtils.substringAfterLast(dto.getUri(), "/"));
-                if (id > 0) {
-                    resultMap.put(id, dto.getHits());
-                }
+    private static String publicOrder(EventSortingTypes sort) {
+        if (sort == EventSortingTypes.VIEWS) {
+            return ORDER_VIEWS;
+        }
+        return sort == EventSortingTypes.EVENT_DATE ? ORDER_EVENT_DATE_ASC : ORDER_ID;
+    }
+
+    private static PageCursor cursorOf(String order, Event event) {
+        switch (order) {
+            case ORDER_VIEWS:
+                return PageCursor.ofNumber(order, event.getViewCount(), event.getId());
+            case ORDER_RATING:
+                return PageCursor.ofNumber(order, event.getRating(), event.getId());
+            case ORDER_EVENT_DATE_ASC:
+            case ORDER_EVENT_DATE_DESC:
+                return PageCursor.ofDate(order, event.getEventDate(), event.getId());
+            default:
+                return PageCursor.ofId(order, event.getId());
+        }
+    }
+
+    private List<Event> searchPublishedEvents(String query, List<Integer> categories, Boolean paid, LocalDateTime rangeStart,
+                                              LocalDateTime rangeEnd, Boolean onlyAvailable, EventSortingTypes sort,
+                                              int size, int from) {
+        return eventRepository.searchPublishedEvents(query, categories == null,
+                categories == null ? List.of(0) : categories, paid == null, Boolean.TRUE.equals(paid),
+                rangeStart == null ? SEARCH_MIN_DATE : rangeStart, rangeEnd == null ? SEARCH_MAX_DATE : rangeEnd,
+                !Boolean.FALSE.equals(onlyAvailable), sort == null ? "" : sort.name(), size, (long) from);
+    }
+
+    /**
+     * Searches the trigram index for words the full-text search does not know, e.g. partial or misspelled ones.
+     * Without an explicit sort the filtered candidates are paged in SQL in order of similarity.
+     */
+    private List<Event> searchByTrigrams(String text, List<Integer> categories, Boolean paid,
+                                         LocalDateTime rangeStart, LocalDateTime rangeEnd, Boolean onlyAvailable,
+                                         EventSortingTypes sort, Integer from, Integer size) {
+        List<Long> candidates = searchIndex.search(text);
+        if (candidates.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (sort == EventSortingTypes.VIEWS || sort == EventSortingTypes.EVENT_DATE) {
+            return getEventsForPublicUsers(null, categories, paid, rangeStart, rangeEnd, onlyAvailable, candidates, sort,
+                    from, size, null).getContent();
+        }
+        return eventRepository.findPublishedEventsInOrder(candidates, categories == null,
+                categories == null ? List.of(0) : categories, paid == null, Boolean.TRUE.equals(paid),
+                rangeStart == null ? SEARCH_MIN_DATE : rangeStart, rangeEnd == null ? SEARCH_MAX_DATE : rangeEnd,
+                !Boolean.FALSE.equals(onlyAvailable), size, (long) from);
+    }
+
+    /**
+     * Turns free text into a {@code to_tsquery} expression matching events that contain every word, each also as a
+     * prefix; returns {@code null} if the text has no words, leaving it to the substring match.
+     */
+    private static String toSearchQuery(String text) {
+        if (StringUtils.isBlank(text)) {
+            return null;
+        }
+        StringJoiner query = new StringJoiner(" & ");
+        for (String word : SEARCH_WORD_SEPARATOR.split(text)) {
+            if (!word.isEmpty()) {
+                query.add(word + ":*");
             }
-            return resultMap;
-        } else {
-            return Collections.emptyMap();
         }
+        return query.length() == 0 ? null : query.toString();
+    }
+
+    private CompletableFuture<Map<Long, Long>> getEventViewsAsync(List<Event> events) {
+        Map<Long, LocalDateTime> publishedOn = new HashMap<>();
+        for (Event event : events) {
+            if (event.getPublishedOn() != null) {
+                publishedOn.put(event.getId(), event.getPublishedOn());
+            }
+        }
+        if (publishedOn.isEmpty()) {
+            return CompletableFuture.completedFuture(Collections.emptyMap());
+        }
+        return eventViewsCache.getViewsAsync(publishedOn);
+    }
+
+    private Map<Long, Long> joinViews(CompletableFuture<Map<Long, Long>> views) {
+        return lookupExecutor.join(views, viewsTimeout, Collections.emptyMap(), "views");
+    }
+
+    private CompletableFuture<List<ReactionOnEvent>> getLastReactionsAsync(Long eventId) {
+        return lookupExecutor.supplyQuery(() -> ratingRepository.findFirst3ByEventIdOrderByTimestampDesc(eventId));
     }
-}
\ No newline at end of file
+}
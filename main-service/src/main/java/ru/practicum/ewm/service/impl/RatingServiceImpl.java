@@ -1,9 +1,8 @@
 package ru.practicum.ewm.service.impl;
 
 import lombok.AllArgsConstructor;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -12,28 +11,33 @@ import ru.practicum.ewm.exception.ConstraintException;
 import ru.practicum.ewm.exception.ObjectNotFoundException;
 import ru.practicum.ewm.mapper.RatingMapper;
 import ru.practicum.ewm.model.*;
+import ru.practicum.ewm.pagination.CursorSlice;
+import ru.practicum.ewm.pagination.OffsetPageRequest;
+import ru.practicum.ewm.pagination.PageCursor;
 import ru.practicum.ewm.repository.EventRepository;
 import ru.practicum.ewm.repository.RatingRepository;
 import ru.practicum.ewm.repository.RequestRepository;
 import ru.practicum.ewm.service.RatingService;
 
-import java.util.List;
 
 @AllArgsConstructor
 @Service
 public class RatingServiceImpl implements RatingService {
+    private static final String ORDER_REACTION_ID = "REACTION_ID";
     private final RequestRepository requestRepository;
     private final RatingRepository ratingRepository;
     private final RatingMapper ratingMapper;
     private final EventRepository eventRepository;
 
     @Override
+    @Transactional
     public ReactionOnEventDto createReaction(Long userId, Long eventId, ReactionStatus reactionStatus) {
         Request request = requestRepository.findByEventIdAndRequesterIdAndEventState(eventId, userId, EventStatus.PUBLISHED)
                 .orElseThrow(() -> new ConstraintException("Event id=" + eventId + " is unavailable, or you have not submitted a " +
                         "application to participate in it"));
         ReactionOnEvent reaction = ratingMapper.toReactionOnEvent(request, reactionStatus);
         ratingRepository.save(reaction);
+        countReaction(eventId, null, reactionStatus);
         return ratingMapper.toReactionOnEventDto(reaction);
     }
 
@@ -43,6 +47,7 @@ public class RatingServiceImpl implements RatingService {
         ReactionOnEvent reactionOnEvent = ratingRepository.findByParticipantIdAndEventId(userId, eventId)
                 .orElseThrow(() -> new ObjectNotFoundException(String.format("User id=%d has not yet left a reaction to the event id=%d", userId, eventId)));
         if (reactionOnEvent.getReaction() != reactionStatus) {
+            countReaction(eventId, reactionOnEvent.getReaction(), reactionStatus);
             reactionOnEvent.setReaction(reactionStatus);
         } else {
             throw new ConstraintException(String.format("For the event id=%d, the reaction has already been marked: %s", eventId, reactionStatus));
@@ -51,21 +56,37 @@ public class RatingServiceImpl implements RatingService {
     }
 
     @Override
+    @Transactional
     public void deleteReaction(Long userId, Long eventId) {
         ReactionOnEvent reactionOnEvent = ratingRepository.findByParticipantIdAndEventId(userId, eventId)
                 .orElseThrow(() -> new ObjectNotFoundException(String.format("User id=%d has not yet left a reaction to the event id=%d", userId, eventId)));
         ratingRepository.deleteById(reactionOnEvent.getId());
+        countReaction(eventId, reactionOnEvent.getReaction(), null);
     }
 
     @Transactional(readOnly = true)
     @Override
-    public List<ReactionOnEventDto> getReactionsOnEvent(Long eventId, Integer from, Integer size) {
+    public CursorSlice<ReactionOnEventDto> getReactionsOnEvent(Long eventId, Integer from, Integer size, String after) {
         Event event = eventRepository.findById(eventId)
                 .orElseThrow(() -> new ObjectNotFoundException(String.format("Event with id=%d was not found", eventId)));
+        PageCursor cursor = PageCursor.decode(after, ORDER_REACTION_ID);
         Sort sortByTimestamp = Sort.by(Sort.Direction.DESC, "id");
-        Pageable page = PageRequest.of(from / size, size, sortByTimestamp);
-        Page<ReactionOnEvent> reactions;
-        reactions = ratingRepository.findByEventId(event.getId(), page);
-        return ratingMapper.toReactionOnEventDtos(reactions.getContent());
+        Pageable page = OffsetPageRequest.of(from, size, sortByTimestamp, cursor);
+        Slice<ReactionOnEvent> reactions;
+        reactions = ratingRepository.getEventReactions(event.getId(), cursor, page);
+        return CursorSlice.of(reactions, ratingMapper.toReactionOnEventDtos(reactions.getContent()),
+                reaction -> PageCursor.ofId(ORDER_REACTION_ID, reaction.getId()));
+    }
+
+    private void countReaction(Long eventId, ReactionStatus removed, ReactionStatus added) {
+        long likes = delta(ReactionStatus.LIKE, removed, added);
+        long dislikes = delta(ReactionStatus.DISLIKE, removed, added);
+        if (likes != 0 || dislikes != 0) {
+            eventRepository.addReactions(eventId, likes, dislikes);
+        }
+    }
+
+    private static long delta(ReactionStatus status, ReactionStatus removed, ReactionStatus added) {
+        return (added == status ? 1 : 0) - (removed == status ? 1 : 0);
     }
-}
\ No newline at end of file
+}
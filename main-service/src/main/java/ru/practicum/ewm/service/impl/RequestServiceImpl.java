@@ -27,6 +27,7 @@ public class RequestServiceImpl implements RequestService {
     private final RequestMapper mapper;
 
     @Override
+    @Transactional
     public ParticipationRequestDto createRequest(Long userId, Long eventId) {
         Event event = eventRepository.findById(eventId).orElseThrow(() -> new ObjectNotFoundException("Event with id=" +
                 eventId + " was not found"));
@@ -34,7 +35,7 @@ public class RequestServiceImpl implements RequestService {
             throw new ConstraintException("Request for event id=" + eventId + " not available");
         }
         Integer participantLimit = event.getParticipantLimit();
-        if (participantLimit > 0 && participantLimit <= requestRepository.countByEventIdAndStatus(eventId, RequestStatus.CONFIRMED)) {
+        if (participantLimit > 0 && participantLimit <= event.getConfirmedRequests()) {
             throw new ConstraintException("For event id=" + eventId + " member limit exceeded");
         }
 
@@ -45,6 +46,9 @@ public class RequestServiceImpl implements RequestService {
         if (event.getRequestModeration()) {
             request.setStatus(RequestStatus.PENDING);
         } else {
+            if (eventRepository.addConfirmedRequests(eventId, 1) == 0) {
+                throw new ConstraintException("For event id=" + eventId + " member limit exceeded");
+            }
             request.setStatus(RequestStatus.CONFIRMED);
         }
         return mapper.toParticipationRequestDto(requestRepository.save(request));
@@ -64,9 +68,13 @@ public class RequestServiceImpl implements RequestService {
     }
 
     @Override
+    @Transactional
     public ParticipationRequestDto cancelRequest(Long userId, Long requestId) {
         Request request = requestRepository.findByIdAndRequesterId(requestId, userId)
                 .orElseThrow(() -> new ObjectNotFoundException("Request with idss=" + requestId + " was not found"));
+        if (request.getStatus() == RequestStatus.CONFIRMED) {
+            eventRepository.removeConfirmedRequest(request.getEvent().getId());
+        }
         if (request.getStatus() != RequestStatus.CANCELED) {
             request.setStatus(RequestStatus.CANCELED);
         }
@@ -11,6 +11,9 @@ import ru.practicum.ewm.dto.user.UserRatingDto;
 import ru.practicum.ewm.exception.ObjectNotFoundException;
 import ru.practicum.ewm.mapper.UserMapper;
 import ru.practicum.ewm.model.User;
+import ru.practicum.ewm.pagination.CursorSlice;
+import ru.practicum.ewm.pagination.OffsetPageRequest;
+import ru.practicum.ewm.pagination.PageCursor;
 import ru.practicum.ewm.repository.UserRating;
 import ru.practicum.ewm.repository.UserRepository;
 import ru.practicum.ewm.service.UserService;
@@ -21,6 +24,8 @@ import java.util.List;
 @Service
 @RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
+    private static final String ORDER_USER_ID = "USER_ID";
+    private static final String ORDER_USER_RATING = "USER_RATING";
     private final UserRepository repository;
     private final UserMapper mapper;
 
@@ -40,30 +45,34 @@ public class UserServiceImpl implements UserService {
 
     @Transactional(readOnly = true)
     @Override
-    public List<UserDto> getUsers(List<Long> ids, Integer from, Integer size) {
+    public CursorSlice<UserDto> getUsers(List<Long> ids, Integer from, Integer size, String after) {
         List<UserDto> userDtos;
         if (CollectionUtils.isEmpty(ids)) {
+            PageCursor cursor = PageCursor.decode(after, ORDER_USER_ID);
             Sort sortById = Sort.by(Sort.Direction.ASC, "id");
-            Pageable page = PageRequest.of(from / size, size, sortById);
-            Page<User> usersPage = repository.findAll(page);
-            userDtos = mapper.toUserDtos(usersPage.getContent());
-            return userDtos;
+            Pageable page = OffsetPageRequest.of(from, size, sortById, cursor);
+            Slice<User> usersSlice = repository.getUsers(cursor, page);
+            userDtos = mapper.toUserDtos(usersSlice.getContent());
+            return CursorSlice.of(usersSlice, userDtos, user -> PageCursor.ofId(ORDER_USER_ID, user.getId()));
         } else {
             userDtos = mapper.toUserDtos(repository.findAllById(ids));
-            return userDtos;
+            return CursorSlice.last(userDtos);
         }
     }
 
     @Transactional(readOnly = true)
     @Override
-    public List<UserRatingDto> getMostRatingUser(Integer from, Integer size, LocalDateTime eventPublishedDate) {
-        Sort sortByRating = Sort.by(Sort.Direction.DESC, "rate");
-        Pageable page = PageRequest.of(from / size, size, sortByRating);
+    public CursorSlice<UserRatingDto> getMostRatingUser(Integer from, Integer size, LocalDateTime eventPublishedDate,
+                                                        String after) {
+        PageCursor cursor = PageCursor.decode(after, ORDER_USER_RATING);
+        Sort sortByRating = Sort.by(Sort.Direction.DESC, "rate").and(Sort.by(Sort.Direction.DESC, "id"));
+        Pageable page = OffsetPageRequest.of(from, size, sortByRating, cursor);
         if (eventPublishedDate == null) {
             eventPublishedDate = LocalDateTime.now().minusMonths(3);
         }
-        Page<UserRating> mostRatingUserPage = repository.getMostRateUser(eventPublishedDate, page);
-        List<UserRating> mostRatingUser = mostRatingUserPage.getContent();
-        return mapper.toUserRatingDtos(mostRatingUser);
+        Slice<UserRating> mostRatingUserSlice = repository.getMostRateUser(eventPublishedDate, cursor, page);
+        List<UserRating> mostRatingUser = mostRatingUserSlice.getContent();
+        return CursorSlice.of(mostRatingUserSlice, mapper.toUserRatingDtos(mostRatingUser),
+                rating -> PageCursor.ofNumber(ORDER_USER_RATING, rating.getRate(), rating.getUser().getId()));
     }
 }
\ No newline at end of file
@@ -1,3 +1,4 @@
+DROP TABLE IF EXISTS view_count_sync;
 DROP TABLE IF EXISTS compilation_events;
 DROP TABLE IF EXISTS compilations;
 DROP TABLE IF EXISTS requests;
@@ -37,11 +38,34 @@ CREATE TABLE IF NOT EXISTS events(
     request_moderation BOOLEAN DEFAULT TRUE,
     state VARCHAR(50) NOT NULL,
     title VARCHAR(120) NOT NULL,
+    confirmed_requests BIGINT NOT NULL DEFAULT 0,
+    likes BIGINT NOT NULL DEFAULT 0,
+    dislikes BIGINT NOT NULL DEFAULT 0,
+    rating BIGINT GENERATED ALWAYS AS (likes - dislikes) STORED,
+    view_count BIGINT NOT NULL DEFAULT 0,
+    search_vector TSVECTOR GENERATED ALWAYS AS (
+        setweight(to_tsvector('russian', title), 'A') ||
+        setweight(to_tsvector('russian', annotation), 'B') ||
+        setweight(to_tsvector('russian', description), 'C')) STORED,
     CONSTRAINT pk_events PRIMARY KEY (id),
     CONSTRAINT fk_events_users FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE SET NULL ON UPDATE CASCADE,
     CONSTRAINT fk_events_categories FOREIGN KEY (category_id) REFERENCES categories (id) ON DELETE SET NULL ON UPDATE CASCADE
 );
 
+CREATE INDEX IF NOT EXISTS ix_events_available ON events (event_date)
+    WHERE state = 'PUBLISHED' AND confirmed_requests < participant_limit;
+
+CREATE INDEX IF NOT EXISTS ix_events_published_rating ON events (rating DESC, id DESC) INCLUDE (event_date)
+    WHERE state = 'PUBLISHED';
+
+CREATE INDEX IF NOT EXISTS ix_events_published_views ON events (view_count DESC, id DESC)
+    WHERE state = 'PUBLISHED';
+
+CREATE INDEX IF NOT EXISTS ix_events_published_event_date ON events (event_date, id)
+    WHERE state = 'PUBLISHED';
+
+CREATE INDEX IF NOT EXISTS ix_events_search_vector ON events USING GIN (search_vector);
+
 CREATE TABLE IF NOT EXISTS requests(
     id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
     user_id BIGINT NOT NULL,
@@ -80,4 +104,11 @@ CREATE TABLE IF NOT EXISTS event_likes(
      CONSTRAINT fk_event_likes_events FOREIGN KEY (id_event) REFERENCES events (id) ON DELETE CASCADE ON UPDATE CASCADE,
      CONSTRAINT fk_event_likes_users FOREIGN KEY (id_user) REFERENCES users (id) ON DELETE CASCADE ON UPDATE CASCADE,
      CONSTRAINT un_event_user UNIQUE (id_event, id_user)
- );
\ No newline at end of file
+ );
+
+-- how far events.view_count has been synced from stat-server; reset together with events
+CREATE TABLE IF NOT EXISTS view_count_sync(
+    app VARCHAR(50) NOT NULL,
+    synced_until TIMESTAMP NOT NULL,
+    CONSTRAINT pk_view_count_sync PRIMARY KEY (app)
+);
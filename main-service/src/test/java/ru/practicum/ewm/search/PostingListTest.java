@@ -0,0 +1,106 @@
+package ru.practicum.ewm.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PostingListTest {
+
+    @Test
+    void appendsAscendingIdsAcrossVarintWidths() {
+        PostingList list = new PostingList();
+        long[] ids = {1, 2, 127, 128, 300, 16_384, 2_097_152, 1L << 40, Long.MAX_VALUE};
+        for (long id : ids) {
+            list.add(id);
+        }
+
+        assertArrayEquals(ids, list.toArray());
+    }
+
+    @Test
+    void mergesOutOfOrderAddsAndRemoves() {
+        PostingList list = new PostingList();
+        list.add(10);
+        list.add(20);
+        list.add(30);
+        list.add(15);
+        list.add(20);
+        list.remove(10);
+        list.remove(25);
+        list.add(40);
+
+        assertArrayEquals(new long[]{15, 20, 30, 40}, list.toArray());
+    }
+
+    @Test
+    void readdsRemovedId() {
+        PostingList list = new PostingList();
+        list.add(5);
+        list.add(6);
+        list.remove(5);
+        list.add(5);
+
+        assertArrayEquals(new long[]{5, 6}, list.toArray());
+    }
+
+    @Test
+    void isEmptyOnceEveryIdIsRemoved() {
+        PostingList list = new PostingList();
+        assertTrue(list.isEmpty());
+        list.add(3);
+        list.add(1);
+        assertFalse(list.isEmpty());
+        list.remove(3);
+        list.remove(1);
+
+        assertTrue(list.isEmpty());
+    }
+
+    @Test
+    void appendAllFoldsPendingChangesFirst() {
+        PostingList list = new PostingList();
+        list.add(10);
+        list.add(5);
+        list.remove(10);
+        list.appendAll(new long[]{11, 12, 99}, 2);
+
+        assertArrayEquals(new long[]{5, 11, 12}, list.toArray());
+    }
+
+    @Test
+    void matchesSortedSetUnderRandomUpdates() {
+        Random random = new Random(42);
+        PostingList list = new PostingList();
+        TreeSet<Long> expected = new TreeSet<>();
+        for (int i = 0; i < 20_000; i++) {
+            long id = 1 + random.nextInt(2_000);
+            if (random.nextInt(3) == 0) {
+                list.remove(id);
+                expected.remove(id);
+            } else {
+                list.add(id);
+                expected.add(id);
+            }
+            if (i % 997 == 0) {
+                assertArrayEquals(toArray(expected), list.toArray());
+            }
+        }
+
+        assertArrayEquals(toArray(expected), list.toArray());
+        PostingList.Cursor cursor = list.cursor();
+        for (long id : expected) {
+            assertEquals(id, cursor.next());
+        }
+        assertEquals(0, cursor.next());
+    }
+
+    private static long[] toArray(TreeSet<Long> ids) {
+        return ids.stream().mapToLong(Long::longValue).toArray();
+    }
+}
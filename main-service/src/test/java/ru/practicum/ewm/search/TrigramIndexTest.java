@@ -0,0 +1,77 @@
+package ru.practicum.ewm.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrigramIndexTest {
+    private static final double THRESHOLD = 0.5;
+
+    @Test
+    void cutsPaddedWordsIntoDistinctTrigrams() {
+        long[] trigrams = TrigramIndex.trigrams("Aa aa");
+
+        assertArrayEquals(new long[]{trigram(' ', ' ', 'a'), trigram(' ', 'a', 'a'), trigram('a', 'a', ' ')}, trigrams);
+        assertEquals(0, TrigramIndex.trigrams("  ,. ").length);
+    }
+
+    @Test
+    void findsPartialAndMisspelledWords() {
+        TrigramIndex index = new TrigramIndex();
+        index.add(1, "Концерт классической музыки");
+        index.add(2, "Выставка современного искусства");
+        index.add(3, "Jazz concert in the park");
+
+        assertEquals(List.of(1L), index.search("классическая", THRESHOLD, 10));
+        assertEquals(List.of(2L), index.search("выставк", THRESHOLD, 10));
+        assertEquals(List.of(3L), index.search("jaz concrt", THRESHOLD, 10));
+        assertTrue(index.search("футбол", THRESHOLD, 10).isEmpty());
+    }
+
+    @Test
+    void ordersByScoreThenNewestAndHonoursLimit() {
+        TrigramIndex index = new TrigramIndex();
+        index.add(1, "river boat tour");
+        index.add(2, "river tour");
+        index.add(3, "river boat tour");
+
+        assertEquals(List.of(3L, 1L, 2L), index.search("river boat", 0.1, 10));
+        assertEquals(List.of(3L, 1L), index.search("river boat", 0.1, 2));
+    }
+
+    @Test
+    void removeDropsEventsAndEmptyPostings() {
+        TrigramIndex index = new TrigramIndex();
+        index.add(1, "marathon");
+        index.add(2, "marathon");
+        int trigrams = index.getTrigramCount();
+        index.remove(1, "marathon");
+
+        assertEquals(List.of(2L), index.search("marathon", THRESHOLD, 10));
+        index.remove(2, "marathon");
+        assertTrue(index.search("marathon", THRESHOLD, 10).isEmpty());
+        assertEquals(trigrams - TrigramIndex.trigrams("marathon").length, index.getTrigramCount());
+    }
+
+    @Test
+    void appendedBatchMatchesIndividualAdds() {
+        List<EventText> texts = List.of(new EventText(5, "Лекция", "об истории", "города"),
+                new EventText(7, "Экскурсия", "по истории", "музея"));
+        TrigramIndex added = new TrigramIndex();
+        texts.forEach(text -> added.add(text.getId(), text.getText()));
+        TrigramIndex appended = new TrigramIndex();
+        appended.add(1, "старое событие");
+        appended.appendAll(TrigramIndex.Batch.of(texts));
+
+        assertEquals(added.search("истории", THRESHOLD, 10), appended.search("истории", THRESHOLD, 10));
+        assertEquals(List.of(7L, 5L), appended.search("истории", THRESHOLD, 10));
+    }
+
+    private static long trigram(char first, char second, char third) {
+        return ((long) first << 32) | ((long) second << 16) | third;
+    }
+}
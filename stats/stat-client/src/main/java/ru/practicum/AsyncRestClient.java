@@ -0,0 +1,231 @@
+package ru.practicum;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.Nullable;
+import ru.practicum.dto.EventViewsRequestDto;
+import ru.practicum.dto.StatCountDto;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Non-blocking stat-server client on top of the JDK {@link HttpClient}. Calls return immediately with a future that
+ * always completes normally with a {@link StatResult}; no caller thread waits for the network.
+ * <p>
+ * At most {@code maxConnections} requests are in flight, which also bounds the connections the client keeps open;
+ * up to {@code maxPending} further requests wait in a queue and are started as in-flight ones complete, and beyond
+ * that a request fails at once with 503. Every request is limited by {@code requestTimeout}.
+ */
+public class AsyncRestClient implements AutoCloseable {
+    private static final TypeReference<List<StatCountDto>> STAT_COUNTS = new TypeReference<>() {
+    };
+    private static final TypeReference<Map<Long, Long>> EVENT_VIEWS = new TypeReference<>() {
+    };
+    private final URI serverUri;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService executor;
+    private final HttpClient http;
+    private final Duration requestTimeout;
+    private final int maxConnections;
+    private final int maxPending;
+    private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public AsyncRestClient(String serverUrl, ObjectMapper objectMapper, int maxConnections, int maxPending, int threads,
+                           Duration connectTimeout, Duration requestTimeout) {
+        this.serverUri = URI.create(serverUrl.endsWith("/") ? serverUrl : serverUrl + "/");
+        this.objectMapper = objectMapper;
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "stat-client-async");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(connectTimeout)
+                .executor(executor)
+                .build();
+        this.requestTimeout = requestTimeout;
+        this.maxConnections = maxConnections;
+        this.maxPending = maxPending;
+    }
+
+    public CompletableFuture<StatResult<List<StatCountDto>>> getStats(LocalDateTime start, LocalDateTime end, boolean unique,
+                                                                      @Nullable Collection<String> uris) {
+        StringBuilder query = new StringBuilder("stats?start=").append(encode(start.format(formatter)))
+                .append("&end=").append(encode(end.format(formatter)))
+                .append("&unique=").append(unique);
+        if (uris != null && !uris.isEmpty()) {
+            query.append("&uris=").append(encode(String.join(",", uris)));
+        }
+        HttpRequest request = HttpRequest.newBuilder(serverUri.resolve(query.toString()))
+                .timeout(requestTimeout)
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+        return send(request, STAT_COUNTS, List.of());
+    }
+
+    public CompletableFuture<StatResult<Map<Long, Long>>> getEventViews(EventViewsRequestDto body) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+        HttpRequest request = HttpRequest.newBuilder(serverUri.resolve("views"))
+                .timeout(requestTimeout)
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(json))
+                .build();
+        return send(request, EVENT_VIEWS, Map.of());
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public int getPending() {
+        return pending.get();
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public long getCompleted() {
+        return completed.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private <T> CompletableFuture<StatResult<T>> send(HttpRequest request, TypeReference<T> type, T empty) {
+        return submit(() -> http.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .handle((response, error) -> {
+                    if (error != null) {
+                        failed.incrementAndGet();
+                        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                        HttpStatus status = cause instanceof HttpTimeoutException ? HttpStatus.GATEWAY_TIMEOUT : HttpStatus.SERVICE_UNAVAILABLE;
+                        return StatResult.failure(status, String.valueOf(cause.getMessage()));
+                    }
+                    HttpStatus status = HttpStatus.valueOf(response.statusCode());
+                    if (!status.is2xxSuccessful()) {
+                        failed.incrementAndGet();
+                        return StatResult.failure(status, new String(response.body(), StandardCharsets.UTF_8));
+                    }
+                    completed.incrementAndGet();
+                    try {
+                        T value = response.body().length == 0 ? empty : objectMapper.readValue(response.body(), type);
+                        return StatResult.success(status, value);
+                    } catch (IOException e) {
+                        return StatResult.failure(HttpStatus.BAD_GATEWAY, e.getMessage());
+                    }
+                }));
+    }
+
+    private <T> CompletableFuture<StatResult<T>> submit(Supplier<CompletableFuture<StatResult<T>>> call) {
+        CompletableFuture<StatResult<T>> result = new CompletableFuture<>();
+        Runnable start = () -> {
+            CompletableFuture<StatResult<T>> response;
+            try {
+                response = call.get();
+            } catch (RuntimeException e) {
+                release();
+                result.complete(StatResult.failure(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage()));
+                return;
+            }
+            response.whenComplete((value, error) -> {
+                release();
+                result.complete(error == null ? value : StatResult.failure(HttpStatus.SERVICE_UNAVAILABLE, error.getMessage()));
+            });
+        };
+        if (tryAcquire()) {
+            start.run();
+            return result;
+        }
+        if (pending.incrementAndGet() > maxPending) {
+            pending.decrementAndGet();
+            rejected.incrementAndGet();
+            result.complete(StatResult.failure(HttpStatus.SERVICE_UNAVAILABLE, "Too many pending stat-server requests"));
+            return result;
+        }
+        queue.add(start);
+        // a request may have completed between the failed acquire and the enqueue
+        drain();
+        return result;
+    }
+
+    private boolean tryAcquire() {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= maxConnections) {
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    private void release() {
+        inFlight.decrementAndGet();
+        drain();
+    }
+
+    private void drain() {
+        while (!queue.isEmpty() && tryAcquire()) {
+            Runnable next = queue.poll();
+            if (next == null) {
+                inFlight.decrementAndGet();
+                return;
+            }
+            pending.decrementAndGet();
+            next.run();
+        }
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
@@ -1,35 +1,65 @@
 package ru.practicum;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.*;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.lang.Nullable;
 import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.DefaultUriBuilderFactory;
+import ru.practicum.codec.StatBinaryHttpMessageConverter;
+import ru.practicum.dto.EventViewsRequestDto;
+import ru.practicum.dto.StatCountDto;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.StringJoiner;
+import java.util.function.Consumer;
 
 public class RestClient {
+    private static final ParameterizedTypeReference<List<StatCountDto>> STAT_COUNTS = new ParameterizedTypeReference<>() {
+    };
+    private static final ParameterizedTypeReference<Map<Long, Long>> EVENT_VIEWS = new ParameterizedTypeReference<>() {
+    };
     private final RestTemplate rest;
     private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private final ObjectReader statCountReader;
+    private final MediaType mediaType;
 
     public RestClient(@Value("${stat-server.url}") String serverUrl, RestTemplateBuilder builder) {
+        this(serverUrl, builder, false);
+    }
+
+    /**
+     * @param binary exchange hits and /stats results as {@code application/x-ewm-stat} frames instead of JSON
+     */
+    public RestClient(String serverUrl, RestTemplateBuilder builder, boolean binary) {
         rest = builder
                 .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl))
                 .requestFactory(HttpComponentsClientHttpRequestFactory::new)
+                .additionalMessageConverters(new StatBinaryHttpMessageConverter())
                 .build();
+        mediaType = binary ? StatBinaryHttpMessageConverter.MEDIA_TYPE : MediaType.APPLICATION_JSON;
+        statCountReader = objectMapperOf(rest).readerFor(StatCountDto.class);
     }
 
     public RestClient(RestTemplate rest) {
         this.rest = rest;
+        this.mediaType = MediaType.APPLICATION_JSON;
+        this.statCountReader = objectMapperOf(rest).readerFor(StatCountDto.class);
     }
 
     public ResponseEntity<Object[]> get(LocalDateTime start, LocalDateTime end, Boolean unique, String uris) {
@@ -48,10 +78,134 @@ public class RestClient {
         return makeAndSendRequest(HttpMethod.GET, path, parameters, null);
     }
 
+    public StatResult<List<StatCountDto>> getStats(LocalDateTime start, LocalDateTime end, boolean unique,
+                                                   @Nullable Collection<String> uris) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("start", start.format(formatter));
+        parameters.put("end", end.format(formatter));
+        parameters.put("unique", unique);
+        String path = "/stats?start={start}&end={end}&unique={unique}";
+        if (uris != null && !uris.isEmpty()) {
+            parameters.put("uris", String.join(",", uris));
+            path += "&uris={uris}";
+        }
+        return exchangeStats(path, parameters);
+    }
+
+    /**
+     * Requests /stats counting the hits of every uri from its own start time up to {@code end}, in one request
+     * per {@link StatCountDto#MAX_URI_STARTS} uris.
+     */
+    public StatResult<List<StatCountDto>> getStats(Map<String, LocalDateTime> uriStarts, LocalDateTime end, boolean unique) {
+        if (uriStarts.isEmpty()) {
+            return StatResult.success(HttpStatus.OK, List.of());
+        }
+        if (uriStarts.size() <= StatCountDto.MAX_URI_STARTS) {
+            return getStatsChunk(uriStarts.entrySet(), end, unique);
+        }
+        List<Map.Entry<String, LocalDateTime>> entries = new ArrayList<>(uriStarts.entrySet());
+        List<StatCountDto> counts = new ArrayList<>();
+        StatResult<List<StatCountDto>> result = null;
+        int chunk = StatCountDto.MAX_URI_STARTS;
+        for (int from = 0; from < entries.size(); from += chunk) {
+            result = getStatsChunk(entries.subList(from, Math.min(from + chunk, entries.size())), end, unique);
+            if (!result.isSuccess()) {
+                return result;
+            }
+            counts.addAll(result.getValue());
+        }
+        return StatResult.success(result.getStatus(), counts);
+    }
+
+    private StatResult<List<StatCountDto>> getStatsChunk(Collection<Map.Entry<String, LocalDateTime>> uriStarts,
+                                                         LocalDateTime end, boolean unique) {
+        StringJoiner uris = new StringJoiner(",");
+        StringJoiner starts = new StringJoiner(",");
+        LocalDateTime start = end;
+        for (Map.Entry<String, LocalDateTime> entry : uriStarts) {
+            uris.add(entry.getKey());
+            starts.add(entry.getValue().format(formatter));
+            start = entry.getValue().isBefore(start) ? entry.getValue() : start;
+        }
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("start", start.format(formatter));
+        parameters.put("end", end.format(formatter));
+        parameters.put("unique", unique);
+        parameters.put("uris", uris.toString());
+        parameters.put("starts", starts.toString());
+        return exchangeStats("/stats?start={start}&end={end}&unique={unique}&uris={uris}&starts={starts}", parameters);
+    }
+
+    private StatResult<List<StatCountDto>> exchangeStats(String path, Map<String, Object> parameters) {
+        try {
+            ResponseEntity<List<StatCountDto>> response = rest.exchange(path, HttpMethod.GET,
+                    new HttpEntity<>(defaultHeaders()), STAT_COUNTS, parameters);
+            return StatResult.success(response.getStatusCode(), response.getBody() != null ? response.getBody() : List.of());
+        } catch (HttpStatusCodeException e) {
+            return StatResult.failure(e.getStatusCode(), e.getResponseBodyAsString());
+        } catch (ResourceAccessException e) {
+            return StatResult.failure(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+        }
+    }
+
+    public StatResult<Map<Long, Long>> getEventViews(EventViewsRequestDto request) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setAccept(List.of(MediaType.APPLICATION_JSON));
+        try {
+            ResponseEntity<Map<Long, Long>> response = rest.exchange("/views", HttpMethod.POST,
+                    new HttpEntity<>(request, headers), EVENT_VIEWS);
+            return StatResult.success(response.getStatusCode(), response.getBody() != null ? response.getBody() : Map.of());
+        } catch (HttpStatusCodeException e) {
+            return StatResult.failure(e.getStatusCode(), e.getResponseBodyAsString());
+        } catch (ResourceAccessException e) {
+            return StatResult.failure(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+        }
+    }
+
+    /**
+     * Requests /stats in streaming mode and passes each row to {@code consumer} as it is read from the response,
+     * without buffering the whole result.
+     */
+    public StatResult<Void> stream(LocalDateTime start, LocalDateTime end, Boolean unique, String uris,
+                                   Consumer<StatCountDto> consumer) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("start", start.format(formatter));
+        parameters.put("end", end.format(formatter));
+        parameters.put("unique", unique);
+        String path = "/stats?start={start}&end={end}&unique={unique}&stream=true";
+        if (!StringUtils.isEmpty(uris)) {
+            parameters.put("uris", uris);
+            path += "&uris={uris}";
+        }
+
+        try {
+            HttpStatus status = rest.execute(path, HttpMethod.GET,
+                    request -> request.getHeaders().setAccept(List.of(MediaType.APPLICATION_NDJSON)),
+                    response -> {
+                        try (MappingIterator<StatCountDto> rows = statCountReader.readValues(response.getBody())) {
+                            while (rows.hasNextValue()) {
+                                consumer.accept(rows.nextValue());
+                            }
+                        }
+                        return response.getStatusCode();
+                    }, parameters);
+            return StatResult.success(status, null);
+        } catch (HttpStatusCodeException e) {
+            return StatResult.failure(e.getStatusCode(), e.getResponseBodyAsString());
+        } catch (ResourceAccessException e) {
+            return StatResult.failure(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+        }
+    }
+
     public <T> ResponseEntity<Object[]> post(T body) {
         return makeAndSendRequest(HttpMethod.POST, "/hit", null, body);
     }
 
+    public <T> ResponseEntity<Object[]> postBatch(List<T> body) {
+        return makeAndSendRequest(HttpMethod.POST, "/hits", null, body);
+    }
+
     private <T> ResponseEntity<Object[]> makeAndSendRequest(HttpMethod method, String path, @Nullable Map<String, Object> parameters, @Nullable T body) {
         HttpEntity<T> requestEntity = new HttpEntity<>(body, defaultHeaders());
 
@@ -72,11 +226,22 @@ public class RestClient {
 
     private HttpHeaders defaultHeaders() {
         HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.setAccept(List.of(MediaType.APPLICATION_JSON));
+        headers.setContentType(mediaType);
+        headers.setAccept(List.of(mediaType, MediaType.APPLICATION_JSON));
         return headers;
     }
 
+    /**
+     * Uses the application's Jackson configuration registered with the template, falling back to a plain mapper.
+     */
+    private static ObjectMapper objectMapperOf(RestTemplate rest) {
+        return rest.getMessageConverters().stream()
+                .filter(MappingJackson2HttpMessageConverter.class::isInstance)
+                .map(converter -> ((MappingJackson2HttpMessageConverter) converter).getObjectMapper())
+                .findFirst()
+                .orElseGet(ObjectMapper::new);
+    }
+
     private static ResponseEntity<Object[]> prepareGatewayResponse(ResponseEntity<Object[]> response) {
         if (response.getStatusCode().is2xxSuccessful()) {
             return response;
@@ -0,0 +1,33 @@
+package ru.practicum;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Outcome of a stat-server call: the decoded value on success, otherwise the status and error body.
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class StatResult<T> {
+    private final HttpStatus status;
+    private final T value;
+    private final String error;
+
+    public static <T> StatResult<T> success(HttpStatus status, T value) {
+        return new StatResult<>(status, value, null);
+    }
+
+    public static <T> StatResult<T> failure(HttpStatus status, String error) {
+        return new StatResult<>(status, null, error);
+    }
+
+    public boolean isSuccess() {
+        return status.is2xxSuccessful();
+    }
+
+    public T orElse(T other) {
+        return isSuccess() && value != null ? value : other;
+    }
+}
@@ -0,0 +1,130 @@
+package ru.practicum.emitter;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import ru.practicum.RestClient;
+import ru.practicum.dto.StatDto;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Collects hits without blocking the caller and ships them to stat-server in batches from a background thread.
+ * Failed batches are retried with exponential backoff; hits that do not fit into the buffer or exhaust
+ * their retries are counted as dropped. Hits are buffered from construction on and shipped once {@link #start()}
+ * has been called.
+ */
+@Slf4j
+public class HitEmitter implements AutoCloseable {
+    private final RestClient client;
+    private final HitRingBuffer<StatDto> buffer;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final int maxRetries;
+    private final long initialBackoffNanos;
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private Thread flusher;
+    private volatile boolean running;
+
+    public HitEmitter(RestClient client, int capacity, int batchSize, Duration flushInterval, int maxRetries,
+                      Duration initialBackoff) {
+        this.client = client;
+        this.buffer = new HitRingBuffer<>(capacity);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.maxRetries = maxRetries;
+        this.initialBackoffNanos = initialBackoff.toNanos();
+    }
+
+    /**
+     * Starts the background thread that ships buffered hits; called once the emitter is fully constructed.
+     */
+    public synchronized void start() {
+        if (flusher != null) {
+            return;
+        }
+        running = true;
+        flusher = new Thread(this::flushLoop, "stat-hit-emitter");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    public void emit(StatDto hit) {
+        if (!buffer.offer(hit)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    public int getPending() {
+        return buffer.size();
+    }
+
+    public long getSent() {
+        return sent.get();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public long getRetries() {
+        return retries.get();
+    }
+
+    @Override
+    public synchronized void close() throws InterruptedException {
+        if (flusher == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(flusher);
+        flusher.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    private void flushLoop() {
+        List<StatDto> batch = new ArrayList<>(batchSize);
+        while (running || buffer.size() > 0) {
+            buffer.drainTo(batch, batchSize);
+            if (!batch.isEmpty()) {
+                send(batch);
+            }
+            if (running && batch.size() < batchSize) {
+                LockSupport.parkNanos(this, flushIntervalNanos);
+            }
+            batch.clear();
+        }
+    }
+
+    private void send(List<StatDto> batch) {
+        long backoff = initialBackoffNanos;
+        for (int attempt = 0; attempt <= maxRetries; attempt++) {
+            if (attempt > 0) {
+                retries.incrementAndGet();
+                LockSupport.parkNanos(this, backoff);
+                backoff *= 2;
+            }
+            ResponseEntity<Object[]> response;
+            try {
+                response = client.postBatch(batch);
+            } catch (RuntimeException e) {
+                log.warn("Failed to send {} hits to stat-server", batch.size(), e);
+                continue;
+            }
+            if (response.getStatusCode().is2xxSuccessful()) {
+                sent.addAndGet(batch.size());
+                return;
+            }
+            if (!response.getStatusCode().is5xxServerError()) {
+                break;
+            }
+        }
+        log.warn("Dropped {} hits after {} retries", batch.size(), maxRetries);
+        dropped.addAndGet(batch.size());
+    }
+}
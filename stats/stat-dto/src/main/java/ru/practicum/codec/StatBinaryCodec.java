@@ -0,0 +1,253 @@
+package ru.practicum.codec;
+
+import ru.practicum.dto.StatCountDto;
+import ru.practicum.dto.StatDto;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary encoding of hit batches and /stats results exchanged between main-service and stat-server.
+ * <p>
+ * A frame is a kind byte ({@link #HITS} or {@link #COUNTS}) followed by a varint row count and the rows.
+ * Strings are written once per frame: a token of 0 is {@code null}, 1 introduces a new string (varint length and
+ * UTF-8 bytes) and {@code n >= 2} refers back to the (n - 2)-th string of the frame. Hit timestamps are
+ * epoch milliseconds of the local date-time taken as UTC, zigzag-delta encoded against the previous hit,
+ * and hit counts are varints, so a typical batch row takes a few bytes plus its ip.
+ * <p>
+ * Row counts and string lengths come from the wire, so the reader checks them against the bytes left in the frame
+ * (when its length is known) and against fixed limits before allocating anything for them.
+ */
+public final class StatBinaryCodec {
+    public static final String MEDIA_TYPE = "application/x-ewm-stat";
+    public static final byte HITS = 1;
+    public static final byte COUNTS = 2;
+    public static final int MAX_STRING_BYTES = 64 * 1024;
+    private static final int MIN_ROW_BYTES = 3;
+    private static final int MAX_INITIAL_ROWS = 1024;
+
+    private StatBinaryCodec() {
+    }
+
+    public static void writeHits(List<StatDto> hits, OutputStream out) throws IOException {
+        Writer writer = new Writer(out, HITS, hits.size());
+        long previous = 0;
+        for (StatDto hit : hits) {
+            writer.writeString(hit.getApp());
+            writer.writeString(hit.getUri());
+            writer.writeString(hit.getIp());
+            long timestamp = hit.getTimestamp().toInstant(ZoneOffset.UTC).toEpochMilli();
+            writer.writeSignedVarLong(timestamp - previous);
+            previous = timestamp;
+        }
+        writer.flush();
+    }
+
+    public static void writeCounts(List<StatCountDto> counts, OutputStream out) throws IOException {
+        Writer writer = new Writer(out, COUNTS, counts.size());
+        for (StatCountDto count : counts) {
+            writer.writeString(count.getApp());
+            writer.writeString(count.getUri());
+            writer.writeVarLong(count.getHits());
+        }
+        writer.flush();
+    }
+
+    /**
+     * Reads a frame and returns its rows: {@link StatDto} for a hits frame, {@link StatCountDto} for a counts frame.
+     */
+    public static List<Object> read(InputStream in) throws IOException {
+        return read(in, -1);
+    }
+
+    /**
+     * Reads a frame of {@code length} bytes, or of unknown length if it is negative.
+     */
+    public static List<Object> read(InputStream in, long length) throws IOException {
+        Reader reader = new Reader(in, length);
+        int kind = reader.readByte();
+        long declared = reader.readVarLong();
+        if (declared < 0 || declared > Integer.MAX_VALUE || declared > reader.remaining() / MIN_ROW_BYTES) {
+            throw new IOException("Frame declares " + declared + " rows, more than its " + reader.remaining() + " bytes can hold");
+        }
+        int size = (int) declared;
+        List<Object> rows = new ArrayList<>(Math.min(size, MAX_INITIAL_ROWS));
+        if (kind == HITS) {
+            long timestamp = 0;
+            for (int i = 0; i < size; i++) {
+                String app = reader.readString();
+                String uri = reader.readString();
+                String ip = reader.readString();
+                timestamp += reader.readSignedVarLong();
+                rows.add(new StatDto(app, uri, ip, LocalDateTime.ofEpochSecond(Math.floorDiv(timestamp, 1000),
+                        (int) Math.floorMod(timestamp, 1000) * 1_000_000, ZoneOffset.UTC)));
+            }
+        } else if (kind == COUNTS) {
+            for (int i = 0; i < size; i++) {
+                rows.add(new StatCountDto(reader.readString(), reader.readString(), reader.readVarLong()));
+            }
+        } else {
+            throw new IOException("Unknown frame kind " + kind);
+        }
+        return rows;
+    }
+
+    private static final class Writer {
+        private final OutputStream out;
+        private final Map<String, Integer> strings = new HashMap<>();
+        private final byte[] buffer = new byte[8192];
+        private int position;
+
+        private Writer(OutputStream out, byte kind, int size) throws IOException {
+            this.out = out;
+            writeByte(kind);
+            writeVarLong(size);
+        }
+
+        private void writeString(String value) throws IOException {
+            if (value == null) {
+                writeVarLong(0);
+                return;
+            }
+            Integer index = strings.get(value);
+            if (index != null) {
+                writeVarLong(index + 2L);
+                return;
+            }
+            strings.put(value, strings.size());
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(1);
+            writeVarLong(bytes.length);
+            if (bytes.length > buffer.length - position) {
+                drain();
+            }
+            if (bytes.length > buffer.length) {
+                out.write(bytes);
+            } else {
+                System.arraycopy(bytes, 0, buffer, position, bytes.length);
+                position += bytes.length;
+            }
+        }
+
+        private void writeSignedVarLong(long value) throws IOException {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        private void writeVarLong(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                writeByte((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            writeByte((int) value);
+        }
+
+        private void writeByte(int value) throws IOException {
+            if (position == buffer.length) {
+                drain();
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        private void drain() throws IOException {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+
+        private void flush() throws IOException {
+            drain();
+            out.flush();
+        }
+    }
+
+    private static final class Reader {
+        private final InputStream in;
+        private final List<String> strings = new ArrayList<>();
+        private final byte[] buffer = new byte[8192];
+        private final long length;
+        private long filled;
+        private int position;
+        private int limit;
+
+        private Reader(InputStream in, long length) {
+            this.in = in;
+            this.length = length;
+        }
+
+        private long remaining() {
+            return length < 0 ? Long.MAX_VALUE : length - (filled - (limit - position));
+        }
+
+        private String readString() throws IOException {
+            long token = readVarLong();
+            if (token == 0) {
+                return null;
+            }
+            if (token > 1) {
+                if (token - 2 >= strings.size()) {
+                    throw new IOException("Unknown string reference " + token);
+                }
+                return strings.get((int) (token - 2));
+            }
+            long byteCount = readVarLong();
+            if (byteCount < 0 || byteCount > MAX_STRING_BYTES || byteCount > remaining()) {
+                throw new IOException("String of " + byteCount + " bytes exceeds the frame");
+            }
+            byte[] bytes = new byte[(int) byteCount];
+            for (int offset = 0; offset < bytes.length; ) {
+                if (position == limit) {
+                    fill();
+                }
+                int length = Math.min(limit - position, bytes.length - offset);
+                System.arraycopy(buffer, position, bytes, offset, length);
+                position += length;
+                offset += length;
+            }
+            String value = new String(bytes, StandardCharsets.UTF_8);
+            strings.add(value);
+            return value;
+        }
+
+        private long readSignedVarLong() throws IOException {
+            long value = readVarLong();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        private long readVarLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint");
+        }
+
+        private int readByte() throws IOException {
+            if (position == limit) {
+                fill();
+            }
+            return buffer[position++] & 0xFF;
+        }
+
+        private void fill() throws IOException {
+            limit = in.read(buffer);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                throw new EOFException("Unexpected end of stat frame");
+            }
+            filled += limit;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package ru.practicum.codec;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.lang.Nullable;
+import ru.practicum.dto.StatCountDto;
+import ru.practicum.dto.StatDto;
+
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Reads and writes {@link StatBinaryCodec} frames as {@code application/x-ewm-stat}. Handles a single
+ * {@link StatDto}, collections of {@link StatDto} or {@link StatCountDto}, and {@code StatCountDto[]}/{@code Object[]}
+ * responses. Register it after the JSON converter so that JSON stays the default representation.
+ * Collections declared with any other element type are left to the other converters.
+ */
+public class StatBinaryHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(StatBinaryCodec.MEDIA_TYPE);
+
+    public StatBinaryHttpMessageConverter() {
+        super(MEDIA_TYPE);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return clazz == StatDto.class || clazz == StatCountDto.class || clazz == StatCountDto[].class
+                || clazz == Object[].class || Collection.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Type type, @Nullable Class<?> contextClass, @Nullable MediaType mediaType) {
+        Class<?> clazz = rawClass(type);
+        return clazz != null && (clazz.isAssignableFrom(ArrayList.class) || supports(clazz)) && hasCodableElements(type)
+                && canRead(mediaType);
+    }
+
+    @Override
+    public boolean canWrite(@Nullable Type type, Class<?> clazz, @Nullable MediaType mediaType) {
+        return supports(clazz) && hasCodableElements(type) && canWrite(mediaType);
+    }
+
+    @Override
+    public Object read(Type type, @Nullable Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+        return convert(readRows(inputMessage), rawClass(type), elementType(type), inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        return convert(readRows(inputMessage), clazz, null, inputMessage);
+    }
+
+    private static List<Object> readRows(HttpInputMessage inputMessage) throws IOException {
+        return StatBinaryCodec.read(inputMessage.getBody(), inputMessage.getHeaders().getContentLength());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void writeInternal(Object value, @Nullable Type type, HttpOutputMessage outputMessage) throws IOException {
+        if (value instanceof StatDto) {
+            StatBinaryCodec.writeHits(List.of((StatDto) value), outputMessage.getBody());
+            return;
+        }
+        List<Object> rows = value instanceof Object[] ? List.of((Object[]) value) : new ArrayList<>((Collection<Object>) value);
+        if (rows.isEmpty() ? elementType(type) == StatDto.class : rows.get(0) instanceof StatDto) {
+            StatBinaryCodec.writeHits((List<StatDto>) (List<?>) rows, outputMessage.getBody());
+        } else if (rows.isEmpty() || rows.get(0) instanceof StatCountDto) {
+            StatBinaryCodec.writeCounts((List<StatCountDto>) (List<?>) rows, outputMessage.getBody());
+        } else {
+            throw new HttpMessageNotWritableException("Cannot encode " + rows.get(0).getClass().getName());
+        }
+    }
+
+    private static Object convert(List<Object> rows, Class<?> clazz, @Nullable Type element, HttpInputMessage inputMessage) {
+        if (clazz == StatDto.class || clazz == StatCountDto.class) {
+            if (rows.size() != 1 || !clazz.isInstance(rows.get(0))) {
+                throw new HttpMessageNotReadableException("Expected a single " + clazz.getSimpleName(), inputMessage);
+            }
+            return rows.get(0);
+        }
+        if (element instanceof Class && !rows.isEmpty() && !((Class<?>) element).isInstance(rows.get(0))) {
+            throw new HttpMessageNotReadableException("Expected " + ((Class<?>) element).getSimpleName() + " rows", inputMessage);
+        }
+        if (clazz.isArray()) {
+            if (!rows.isEmpty() && !(rows.get(0) instanceof StatCountDto)) {
+                throw new HttpMessageNotReadableException("Expected StatCountDto rows", inputMessage);
+            }
+            return rows.toArray(new StatCountDto[0]);
+        }
+        return rows;
+    }
+
+    @Nullable
+    private static Class<?> rawClass(Type type) {
+        if (type instanceof Class) {
+            return (Class<?>) type;
+        }
+        if (type instanceof ParameterizedType) {
+            return rawClass(((ParameterizedType) type).getRawType());
+        }
+        return null;
+    }
+
+    /**
+     * Whether a declared collection type has elements the codec can encode; raw types are decided when writing.
+     */
+    private static boolean hasCodableElements(@Nullable Type type) {
+        Type element = elementType(type);
+        return element == null || element == StatDto.class || element == StatCountDto.class;
+    }
+
+    @Nullable
+    private static Type elementType(@Nullable Type type) {
+        if (type instanceof ParameterizedType) {
+            return ((ParameterizedType) type).getActualTypeArguments()[0];
+        }
+        return null;
+    }
+}
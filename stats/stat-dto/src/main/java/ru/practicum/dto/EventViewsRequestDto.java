@@ -0,0 +1,47 @@
+package ru.practicum.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.AssertTrue;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventViewsRequestDto {
+    @NotBlank
+    private String app;
+    @NotNull
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime start;
+    @NotNull
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime end;
+    private boolean unique;
+    @NotEmpty
+    private List<@NotNull Long> ids;
+    /**
+     * Optional start per id, aligned with {@link #ids}; a missing list or {@code null} element means {@link #start}.
+     */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private List<LocalDateTime> starts;
+
+    public LocalDateTime startOf(int index) {
+        LocalDateTime own = starts != null ? starts.get(index) : null;
+        return own != null ? own : start;
+    }
+
+    @JsonIgnore
+    @AssertTrue(message = "starts must be aligned with ids")
+    public boolean isStartsAligned() {
+        return starts == null || ids == null || starts.size() == ids.size();
+    }
+}
@@ -8,6 +8,10 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 @NoArgsConstructor
 public class StatCountDto {
+    /**
+     * The most uris /stats accepts with per-uri starts in one query string; longer lists belong in the POST /views body.
+     */
+    public static final int MAX_URI_STARTS = 100;
     private String app;
     private String uri;
     private long hits;
@@ -1,18 +1,27 @@
 package ru.practicum.dto;
 
+import com.fasterxml.jackson.annotation.JsonFormat;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
 import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.time.LocalDateTime;
 
 @AllArgsConstructor
 @Data
 public class StatDto {
+    public static final int MAX_APP_LENGTH = 50;
+    public static final int MAX_URI_LENGTH = 150;
     @NotBlank
+    @Size(max = MAX_APP_LENGTH)
     private String app;
     @NotBlank
+    @Size(max = MAX_URI_LENGTH)
     private String uri;
     private String ip;
-    @NotBlank
-    private String timestamp;
-}
\ No newline at end of file
+    @NotNull
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime timestamp;
+}
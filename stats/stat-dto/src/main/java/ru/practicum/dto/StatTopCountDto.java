@@ -0,0 +1,18 @@
+package ru.practicum.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Estimated hits of a heavy hitter: the true count lies in {@code [hits - error, hits]}.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StatTopCountDto {
+    private String app;
+    private String uri;
+    private long hits;
+    private long error;
+}
@@ -0,0 +1,114 @@
+package ru.practicum.codec;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.dto.StatCountDto;
+import ru.practicum.dto.StatDto;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StatBinaryCodecTest {
+
+    @Test
+    void roundTripsHits() throws IOException {
+        List<StatDto> hits = List.of(
+                new StatDto("ewm-main-service", "/events/1", "192.168.0.1", LocalDateTime.of(2024, 3, 1, 12, 0, 0, 123_000_000)),
+                new StatDto("ewm-main-service", "/events/1", "192.168.0.1", LocalDateTime.of(2024, 3, 1, 11, 59, 59)),
+                new StatDto("ewm-main-service", "/события/2", null, LocalDateTime.of(1969, 12, 31, 23, 59, 59, 999_000_000)),
+                new StatDto("другое", "/events", "::1", LocalDateTime.of(2024, 3, 1, 12, 0)));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StatBinaryCodec.writeHits(hits, out);
+
+        assertEquals(new ArrayList<Object>(hits), read(out.toByteArray()));
+    }
+
+    @Test
+    void roundTripsCounts() throws IOException {
+        List<StatCountDto> counts = List.of(
+                new StatCountDto("ewm-main-service", "/events/1", 0),
+                new StatCountDto("ewm-main-service", "/events/2", 127),
+                new StatCountDto("ewm-main-service", "/événements/3", 128),
+                new StatCountDto(null, "/events/1", Long.MAX_VALUE));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StatBinaryCodec.writeCounts(counts, out);
+
+        assertEquals(new ArrayList<Object>(counts), read(out.toByteArray()));
+    }
+
+    @Test
+    void roundTripsEmptyFrameAndLongStrings() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StatBinaryCodec.writeCounts(List.of(), out);
+        assertEquals(List.of(), read(out.toByteArray()));
+
+        char[] chars = new char[20_000];
+        Arrays.fill(chars, 'ю');
+        List<StatCountDto> counts = List.of(new StatCountDto("app", new String(chars), 1));
+        out = new ByteArrayOutputStream();
+        StatBinaryCodec.writeCounts(counts, out);
+        assertEquals(new ArrayList<Object>(counts), read(out.toByteArray()));
+    }
+
+    @Test
+    void rejectsMoreRowsThanTheFrameCanHold() {
+        byte[] frame = {StatBinaryCodec.COUNTS, 10, 0, 0, 0};
+
+        IOException e = assertThrows(IOException.class, () -> read(frame));
+        assertEquals("Frame declares 10 rows, more than its 3 bytes can hold", e.getMessage());
+    }
+
+    @Test
+    void rejectsStringsLongerThanTheLimit() {
+        int length = StatBinaryCodec.MAX_STRING_BYTES + 1;
+        byte[] frame = {StatBinaryCodec.COUNTS, 1, 1, (byte) (length & 0x7F | 0x80), (byte) (length >>> 7 & 0x7F | 0x80),
+                (byte) (length >>> 14), 0, 0};
+
+        assertThrows(IOException.class, () -> StatBinaryCodec.read(new ByteArrayInputStream(frame)));
+    }
+
+    @Test
+    void rejectsStringsLongerThanTheFrame() {
+        byte[] frame = {StatBinaryCodec.COUNTS, 1, 1, 100, 'a', 'b', 0, 0};
+
+        assertThrows(IOException.class, () -> read(frame));
+    }
+
+    @Test
+    void rejectsUnknownStringReferences() {
+        byte[] frame = {StatBinaryCodec.COUNTS, 1, 2, 0, 0};
+
+        IOException e = assertThrows(IOException.class, () -> read(frame));
+        assertEquals("Unknown string reference 2", e.getMessage());
+    }
+
+    @Test
+    void rejectsUnknownFrameKinds() {
+        byte[] frame = {7, 0};
+
+        assertThrows(IOException.class, () -> read(frame));
+    }
+
+    @Test
+    void rejectsTruncatedFrames() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StatBinaryCodec.writeHits(List.of(new StatDto("app", "/events/1", "10.0.0.1", LocalDateTime.of(2024, 3, 1, 12, 0))), out);
+        byte[] frame = Arrays.copyOf(out.toByteArray(), out.size() - 1);
+
+        assertThrows(EOFException.class, () -> StatBinaryCodec.read(new ByteArrayInputStream(frame)));
+    }
+
+    private static List<Object> read(byte[] frame) throws IOException {
+        return StatBinaryCodec.read(new ByteArrayInputStream(frame), frame.length);
+    }
+}
@@ -0,0 +1,13 @@
+package ru.practicum.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "stat-server.cache")
+public class CacheProperties {
+    private boolean enabled = true;
+    private long maxBytes = 64L * 1024 * 1024;
+}
@@ -0,0 +1,227 @@
+package ru.practicum.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.model.Stat;
+import ru.practicum.model.StatKey;
+import ru.practicum.model.UriRange;
+import ru.practicum.other.IpAddresses;
+import ru.practicum.repository.StatBucketRepository;
+import ru.practicum.rollup.RollupGranularity;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * LRU cache of per-(uri, day) aggregates for days that have already ended: hits and the packed distinct ips
+ * per app. Such buckets only change when a late hit arrives, which evicts the bucket once its batch commits.
+ * A load that raced with a late hit is not cached, so a stale bucket is never served twice.
+ * The cache is bounded by an estimate of the memory its entries hold; a single entry larger than the bound is
+ * served but not cached.
+ * <p>
+ * Misses load hits from the {@code stats_day} rollup only; distinct ips are read from the raw rows of the missing
+ * days just for unique queries, and an entry loaded without them is completed by the first unique query that needs it.
+ */
+@Component
+public class ClosedBucketCache {
+    private static final long ENTRY_OVERHEAD = 128;
+    private static final long APP_OVERHEAD = 64;
+    private final CacheProperties properties;
+    private final StatBucketRepository repository;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private long bytes;
+
+    public ClosedBucketCache(CacheProperties properties, StatBucketRepository repository, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.repository = repository;
+        FunctionCounter.builder("stat.cache.hits", hits, AtomicLong::get).register(meterRegistry);
+        FunctionCounter.builder("stat.cache.misses", misses, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("stat.cache.hit.ratio", this, ClosedBucketCache::getHitRatio).register(meterRegistry);
+        Gauge.builder("stat.cache.entries", this, ClosedBucketCache::getSize).register(meterRegistry);
+        Gauge.builder("stat.cache.bytes", this, ClosedBucketCache::getBytes).register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Returns the first instant that is not covered by closed days, i.e. the start of the current day.
+     */
+    public LocalDateTime getClosedBefore() {
+        return RollupGranularity.DAY.floor(LocalDateTime.now());
+    }
+
+    public void addCounts(LocalDateTime from, LocalDateTime to, List<Integer> uriIds, Map<StatKey, Long> target) {
+        addCounts(sameFrom(from, uriIds), to, target);
+    }
+
+    /**
+     * Adds the hits of the closed days in {@code [fromByUri.get(uri), to)} for every uri of the map.
+     */
+    public void addCounts(Map<Integer, LocalDateTime> fromByUri, LocalDateTime to, Map<StatKey, Long> target) {
+        forEachEntry(fromByUri, to, false, (uriId, entry) ->
+                entry.hits.forEach((appId, count) -> target.merge(new StatKey(appId, uriId), count, Long::sum)));
+    }
+
+    public void forEachIp(LocalDateTime from, LocalDateTime to, List<Integer> uriIds, BiConsumer<StatKey, byte[]> consumer) {
+        forEachIp(sameFrom(from, uriIds), to, consumer);
+    }
+
+    public void forEachIp(Map<Integer, LocalDateTime> fromByUri, LocalDateTime to, BiConsumer<StatKey, byte[]> consumer) {
+        forEachEntry(fromByUri, to, true, (uriId, entry) -> entry.ips.forEach((appId, packed) -> {
+            StatKey key = new StatKey(appId, uriId);
+            for (int i = 0; i < packed.length; i += IpAddresses.LENGTH) {
+                consumer.accept(key, Arrays.copyOfRange(packed, i, i + IpAddresses.LENGTH));
+            }
+        }));
+    }
+
+    @TransactionalEventListener
+    public void onHitsPersisted(HitsPersistedEvent event) {
+        LocalDateTime closedBefore = getClosedBefore();
+        Set<Key> stale = new HashSet<>();
+        for (Stat stat : event.getStats()) {
+            if (stat.getTimestamp().isBefore(closedBefore)) {
+                stale.add(new Key(stat.getUriId(), RollupGranularity.DAY.floor(stat.getTimestamp())));
+            }
+        }
+        if (stale.isEmpty()) {
+            return;
+        }
+        synchronized (entries) {
+            generation.incrementAndGet();
+            for (Key key : stale) {
+                Entry entry = entries.remove(key);
+                if (entry != null) {
+                    bytes -= entry.bytes;
+                }
+            }
+        }
+    }
+
+    public long getSize() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getBytes() {
+        synchronized (entries) {
+            return bytes;
+        }
+    }
+
+    public double getHitRatio() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0 : (double) hits.get() / total;
+    }
+
+    private void forEachEntry(Map<Integer, LocalDateTime> fromByUri, LocalDateTime to, boolean withIps,
+                              BiConsumer<Integer, Entry> consumer) {
+        Map<Key, Entry> found = new HashMap<>();
+        List<Key> missing = new ArrayList<>();
+        synchronized (entries) {
+            fromByUri.forEach((uriId, from) -> {
+                for (LocalDateTime day = from; day.isBefore(to); day = day.plusDays(1)) {
+                    Key key = new Key(uriId, day);
+                    Entry entry = entries.get(key);
+                    if (entry != null && (!withIps || entry.ips != null)) {
+                        found.put(key, entry);
+                    } else {
+                        missing.add(key);
+                    }
+                }
+            });
+        }
+        hits.addAndGet(found.size());
+        misses.addAndGet(missing.size());
+        if (!missing.isEmpty()) {
+            found.putAll(load(missing, withIps));
+        }
+        found.forEach((key, entry) -> consumer.accept(key.getUriId(), entry));
+    }
+
+    private static Map<Integer, LocalDateTime> sameFrom(LocalDateTime from, List<Integer> uriIds) {
+        Map<Integer, LocalDateTime> fromByUri = new HashMap<>();
+        uriIds.forEach(uriId -> fromByUri.put(uriId, from));
+        return fromByUri;
+    }
+
+    private Map<Key, Entry> load(List<Key> missing, boolean withIps) {
+        long stamp = generation.get();
+        Map<Key, Entry> loaded = new HashMap<>();
+        List<UriRange> days = new ArrayList<>(missing.size());
+        for (Key key : missing) {
+            loaded.put(key, new Entry(withIps));
+            days.add(new UriRange(key.getUriId(), key.getDay(), key.getDay().plusDays(1), false));
+        }
+
+        repository.forEachDailyCount(days, (bucket, count) -> {
+            Entry entry = loaded.get(new Key(bucket.getUriId(), bucket.getBucket()));
+            if (entry != null) {
+                entry.hits.put(bucket.getAppId(), count);
+            }
+        });
+        if (withIps) {
+            Map<Key, Map<Integer, ByteArrayOutputStream>> ips = new HashMap<>();
+            repository.forEachDailyDistinctIp(days, (bucket, ip) -> {
+                Key key = new Key(bucket.getUriId(), bucket.getBucket());
+                if (loaded.containsKey(key)) {
+                    ips.computeIfAbsent(key, k -> new HashMap<>())
+                            .computeIfAbsent(bucket.getAppId(), appId -> new ByteArrayOutputStream())
+                            .writeBytes(ip);
+                }
+            });
+            ips.forEach((key, apps) -> apps.forEach((appId, packed) -> loaded.get(key).ips.put(appId, packed.toByteArray())));
+        }
+
+        synchronized (entries) {
+            if (generation.get() != stamp) {
+                return loaded;
+            }
+            for (Map.Entry<Key, Entry> loadedEntry : loaded.entrySet()) {
+                Entry entry = loadedEntry.getValue();
+                entry.bytes = ENTRY_OVERHEAD + APP_OVERHEAD * entry.hits.size() + (entry.ips == null ? 0
+                        : entry.ips.values().stream().mapToLong(packed -> packed.length).sum());
+                if (entry.bytes > properties.getMaxBytes()) {
+                    continue;
+                }
+                Entry previous = entries.put(loadedEntry.getKey(), entry);
+                bytes += entry.bytes - (previous != null ? previous.bytes : 0);
+            }
+            Iterator<Entry> eldest = entries.values().iterator();
+            while (bytes > properties.getMaxBytes() && eldest.hasNext()) {
+                bytes -= eldest.next().bytes;
+                eldest.remove();
+            }
+        }
+        return loaded;
+    }
+
+    @Value
+    private static class Key {
+        int uriId;
+        LocalDateTime day;
+    }
+
+    private static final class Entry {
+        private final Map<Integer, Long> hits = new HashMap<>();
+        private final Map<Integer, byte[]> ips;
+        private long bytes;
+
+        private Entry(boolean withIps) {
+            this.ips = withIps ? new HashMap<>() : null;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package ru.practicum.cache;
+
+import lombok.Value;
+import ru.practicum.model.Stat;
+
+import java.util.List;
+
+@Value
+public class HitsPersistedEvent {
+    List<Stat> stats;
+}
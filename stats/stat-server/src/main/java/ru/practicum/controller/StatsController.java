@@ -1,20 +1,33 @@
 package ru.practicum.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.dto.EventViewsRequestDto;
 import ru.practicum.dto.StatCountDto;
 import ru.practicum.dto.StatDto;
+import ru.practicum.dto.StatTopCountDto;
 import ru.practicum.service.StatService;
+import ru.practicum.topk.TopWindow;
 import static ru.practicum.other.OtherUtils.getFormatter;
 
 import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Validated
@@ -22,6 +35,7 @@ import java.util.List;
 @RequiredArgsConstructor
 public class StatsController {
     private final StatService service;
+    private final ObjectMapper objectMapper;
 
     @PostMapping("/hit")
     @ResponseStatus(HttpStatus.CREATED)
@@ -30,14 +44,72 @@ public class StatsController {
         service.createStat(dto);
     }
 
+    @PostMapping("/hits")
+    @ResponseStatus(HttpStatus.CREATED)
+    public void createStats(@RequestBody @NotEmpty List<@NotNull @Valid StatDto> dtos) {
+        log.info("Write in statistics {} hits", dtos.size());
+        service.createStats(dtos);
+    }
+
     @GetMapping("/stats")
     public ResponseEntity<List<StatCountDto>> getStats(@RequestParam(name = "start") String start,
                                                        @RequestParam(name = "end") String end,
                                                        @RequestParam(name = "unique", defaultValue = "false") Boolean unique,
-                                                       @RequestParam(name = "uris", required = false) List<String> uris) {
-        log.info("Getting statistics: with = {}, by = {}, unique ip = {}, filter = {}", start, end, unique, uris);
+                                                       @RequestParam(name = "uris", required = false) List<String> uris,
+                                                       @RequestParam(name = "starts", required = false) List<String> starts,
+                                                       @RequestParam(name = "approximate", defaultValue = "false") Boolean approximate) {
+        log.info("Getting statistics: with = {}, by = {}, unique ip = {}, filter = {}, starts = {}, approximate = {}", start, end,
+                unique, uris, starts, approximate);
 
         return new ResponseEntity<>(service.getStats(LocalDateTime.parse(start, getFormatter()),
-                LocalDateTime.parse(end, getFormatter()), unique, uris), HttpStatus.OK);
+                LocalDateTime.parse(end, getFormatter()), unique, uris, parseStarts(starts), approximate), HttpStatus.OK);
+    }
+
+    @GetMapping("/stats/top")
+    public List<StatTopCountDto> getTop(@RequestParam(name = "window", defaultValue = "HOUR") TopWindow window,
+                                        @RequestParam(name = "limit", defaultValue = "10") @Positive int limit) {
+        log.info("Getting top {} uris of the last {}", limit, window);
+        return service.getTop(window, limit);
+    }
+
+    @PostMapping("/views")
+    public Map<Long, Long> getEventViews(@RequestBody @NotNull @Valid EventViewsRequestDto request) {
+        log.info("Getting views of {} events for {}", request.getIds().size(), request.getApp());
+        return service.getEventViews(request);
+    }
+
+    @GetMapping(value = "/stats", params = "stream=true", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamStats(@RequestParam(name = "start") String start,
+                                                             @RequestParam(name = "end") String end,
+                                                             @RequestParam(name = "unique", defaultValue = "false") Boolean unique,
+                                                             @RequestParam(name = "uris", required = false) List<String> uris,
+                                                             @RequestParam(name = "starts", required = false) List<String> starts,
+                                                             @RequestParam(name = "approximate", defaultValue = "false") Boolean approximate) {
+        log.info("Streaming statistics: with = {}, by = {}, unique ip = {}, filter = {}, starts = {}, approximate = {}", start, end,
+                unique, uris, starts, approximate);
+        LocalDateTime startTime = LocalDateTime.parse(start, getFormatter());
+        LocalDateTime endTime = LocalDateTime.parse(end, getFormatter());
+        List<LocalDateTime> startTimes = parseStarts(starts);
+
+        StreamingResponseBody body = outputStream -> {
+            try (SequenceWriter writer = objectMapper.writerFor(StatCountDto.class).withRootValueSeparator("\n")
+                    .writeValues(outputStream)) {
+                service.streamStats(startTime, endTime, unique, uris, startTimes, approximate, dto -> {
+                    try {
+                        writer.write(dto);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    private static List<LocalDateTime> parseStarts(List<String> starts) {
+        if (starts == null) {
+            return null;
+        }
+        return starts.stream().map(value -> LocalDateTime.parse(value, getFormatter())).collect(Collectors.toList());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,198 @@
+package ru.practicum.dictionary;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.practicum.model.Stat;
+import ru.practicum.model.StatKey;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns app names and uris into the {@code stat_apps} / {@code stat_uris} dictionary tables so that hits and
+ * rollups store and group by integer ids. Both directions are cached; entries are never removed, so a cached
+ * mapping stays valid for the lifetime of the process. Uris of the form {@code /events/{id}} also carry the event id,
+ * so views can be looked up by id through the {@code event_id} index.
+ * <p>
+ * Accepting a hit only consults the cache through {@link #resolveCached}; names seen for the first time are
+ * interned by the writer through {@link #resolve}, so a slow or unavailable database never fails a hit
+ * before it reaches the queue or the write-ahead log.
+ */
+@Component
+public class StatDictionary {
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final Table apps;
+    private final Table uris;
+    private final ConcurrentHashMap<Long, Integer> eventUriIds = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, Long> uriEventIds = new ConcurrentHashMap<>();
+
+    public StatDictionary(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.apps = new Table("stat_apps", "name");
+        this.uris = new Table("stat_uris", "uri");
+    }
+
+    /**
+     * Sets the ids of {@code stat} from the cache and returns whether both were known, without touching the database.
+     */
+    public boolean resolveCached(Stat stat) {
+        if (stat.getAppId() == null) {
+            stat.setAppId(apps.ids.get(stat.getApp()));
+        }
+        if (stat.getUriId() == null) {
+            stat.setUriId(uris.ids.get(stat.getUri()));
+        }
+        return stat.isResolved();
+    }
+
+    /**
+     * Sets the ids of every hit in {@code stats}, interning the names that are not in the dictionary yet.
+     * Must not run inside a transaction that may roll back, since interned ids are cached for good.
+     */
+    public void resolve(Collection<Stat> stats) {
+        for (Stat stat : stats) {
+            if (stat.getAppId() == null) {
+                stat.setAppId(apps.idOf(stat.getApp()));
+            }
+            if (stat.getUriId() == null) {
+                stat.setUriId(uris.idOf(stat.getUri()));
+            }
+        }
+    }
+
+    public List<Integer> findUriIds(Collection<String> values) {
+        return new ArrayList<>(uris.findIds(values).values());
+    }
+
+    public Map<String, Integer> findUriIdsByUri(Collection<String> values) {
+        return uris.findIds(values);
+    }
+
+    public Integer findAppId(String app) {
+        return apps.findIds(Collections.singletonList(app)).get(app);
+    }
+
+    public Map<Long, Integer> findEventUriIds(Collection<Long> eventIds) {
+        Map<Long, Integer> result = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long eventId : eventIds) {
+            Integer uriId = eventUriIds.get(eventId);
+            if (uriId != null) {
+                result.put(eventId, uriId);
+            } else {
+                missing.add(eventId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            jdbcTemplate.query("select id, uri, event_id from stat_uris where event_id in (:eventIds)",
+                    new MapSqlParameterSource("eventIds", missing), rs -> {
+                        int uriId = rs.getInt("id");
+                        long eventId = rs.getLong("event_id");
+                        uris.cache(uriId, rs.getString("uri"));
+                        eventUriIds.putIfAbsent(eventId, uriId);
+                        uriEventIds.putIfAbsent(uriId, eventId);
+                        result.put(eventId, uriId);
+                    });
+        }
+        return result;
+    }
+
+    public Long eventIdOf(int uriId) {
+        return uriEventIds.get(uriId);
+    }
+
+    public String appName(int id) {
+        return apps.nameOf(id);
+    }
+
+    public String uriName(int id) {
+        return uris.nameOf(id);
+    }
+
+    public void preload(Collection<StatKey> keys) {
+        Set<Integer> appIds = new HashSet<>();
+        Set<Integer> uriIds = new HashSet<>();
+        for (StatKey key : keys) {
+            appIds.add(key.getAppId());
+            uriIds.add(key.getUriId());
+        }
+        apps.loadNames(appIds);
+        uris.loadNames(uriIds);
+    }
+
+    private final class Table {
+        private final String table;
+        private final String column;
+        private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<Integer, String> names = new ConcurrentHashMap<>();
+
+        private Table(String table, String column) {
+            this.table = table;
+            this.column = column;
+        }
+
+        private int idOf(String name) {
+            Integer id = ids.get(name);
+            if (id != null) {
+                return id;
+            }
+            id = jdbcTemplate.queryForObject("insert into " + table + " (" + column + ") values (:name) " +
+                            "on conflict (" + column + ") do update set " + column + " = excluded." + column + " returning id",
+                    new MapSqlParameterSource("name", name), Integer.class);
+            cache(id, name);
+            return id;
+        }
+
+        private Map<String, Integer> findIds(Collection<String> values) {
+            Map<String, Integer> result = new LinkedHashMap<>();
+            List<String> missing = new ArrayList<>();
+            for (String value : values) {
+                Integer id = ids.get(value);
+                if (id != null) {
+                    result.put(value, id);
+                } else {
+                    missing.add(value);
+                }
+            }
+            if (!missing.isEmpty()) {
+                jdbcTemplate.query("select id, " + column + " from " + table + " where " + column + " in (:values)",
+                        new MapSqlParameterSource("values", missing), rs -> {
+                            cache(rs.getInt("id"), rs.getString(column));
+                            result.put(rs.getString(column), rs.getInt("id"));
+                        });
+            }
+            return result;
+        }
+
+        private String nameOf(int id) {
+            String name = names.get(id);
+            if (name == null) {
+                loadNames(Collections.singleton(id));
+                name = names.get(id);
+            }
+            return name;
+        }
+
+        private void loadNames(Set<Integer> idsToLoad) {
+            List<Integer> missing = new ArrayList<>();
+            for (Integer id : idsToLoad) {
+                if (!names.containsKey(id)) {
+                    missing.add(id);
+                }
+            }
+            if (missing.isEmpty()) {
+                return;
+            }
+            jdbcTemplate.query("select id, " + column + " from " + table + " where id in (:ids)",
+                    new MapSqlParameterSource("ids", missing), rs -> {
+                        cache(rs.getInt("id"), rs.getString(column));
+                    });
+        }
+
+        private void cache(int id, String name) {
+            ids.putIfAbsent(name, id);
+            names.putIfAbsent(id, name);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package ru.practicum.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class HitQueueOverflowException extends RuntimeException {
+    public HitQueueOverflowException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package ru.practicum.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidIpException extends RuntimeException {
+    public InvalidIpException(String ip) {
+        super("Invalid ip address: " + ip);
+    }
+}
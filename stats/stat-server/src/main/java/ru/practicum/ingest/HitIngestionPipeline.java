@@ -0,0 +1,356 @@
+package ru.practicum.ingest;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.practicum.dictionary.StatDictionary;
+import ru.practicum.exception.HitQueueOverflowException;
+import ru.practicum.model.Stat;
+import ru.practicum.repository.StatBatchRepository;
+import ru.practicum.topk.TopUriTracker;
+import ru.practicum.wal.HitLog;
+import ru.practicum.wal.WalProperties;
+import ru.practicum.window.HotWindow;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Accepts hits into a bounded queue and persists them from a single writer thread in JDBC batches.
+ * A batch is written when it reaches {@code batchSize}, when {@code maxFlushDelay} elapses since its first hit,
+ * or earlier if a reader asks for a flush through {@link #awaitPersisted()}.
+ * Without the write-ahead log a batch that fails to commit is retried up to {@code writeRetries} times with backoff,
+ * after which its hits are dropped and counted in {@code stat.ingest.hits.failed}.
+ * <p>
+ * With the write-ahead log enabled a hit is accepted once it is appended to the {@link HitLog}, and the writer
+ * replays the log instead of the queue: a batch that fails to commit is retried with backoff until the database
+ * is back, so an outage delays hits instead of losing them and bursts are bounded by disk rather than memory.
+ * A batch that still fails after {@code maxReplayAttempts} while the database is reachable is replayed hit by hit,
+ * and the hits it rejects are moved to {@code stat_wal_quarantine} so that the log keeps moving.
+ * <p>
+ * Hits whose app or uri was not in the dictionary cache on submit are interned by the writer before their batch is
+ * written, and only then recorded in the hot window and the top-k tracker.
+ */
+@Slf4j
+@Component
+public class HitIngestionPipeline {
+    private static final long FLUSH_POLL_MILLIS = 5;
+    private static final long INITIAL_RETRY_MILLIS = 50;
+    private final StatBatchRepository repository;
+    private final StatDictionary dictionary;
+    private final HotWindow hotWindow;
+    private final TopUriTracker topUriTracker;
+    private final IngestionProperties properties;
+    private final HitLog hitLog;
+    private final WalProperties walProperties;
+    private final BlockingQueue<Stat> queue;
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong quarantined = new AtomicLong();
+    private final List<Stat> unresolved = new ArrayList<>();
+    private final Object flushMonitor = new Object();
+    private volatile boolean flushRequested;
+    private volatile boolean running;
+    private Thread writer;
+
+    public HitIngestionPipeline(StatBatchRepository repository, StatDictionary dictionary, HotWindow hotWindow,
+                                TopUriTracker topUriTracker, IngestionProperties properties, HitLog hitLog,
+                                WalProperties walProperties, MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.dictionary = dictionary;
+        this.hotWindow = hotWindow;
+        this.topUriTracker = topUriTracker;
+        this.properties = properties;
+        this.hitLog = hitLog;
+        this.walProperties = walProperties;
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        FunctionCounter.builder("stat.ingest.hits.dropped", dropped, AtomicLong::get).register(meterRegistry);
+        FunctionCounter.builder("stat.ingest.hits.failed", failed, AtomicLong::get).register(meterRegistry);
+        FunctionCounter.builder("stat.wal.hits.quarantined", quarantined, AtomicLong::get).register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        if (hitLog.isEnabled()) {
+            accepted.set(hitLog.getBacklog());
+            writer = new Thread(this::replayLoop, "stat-hit-writer");
+        } else {
+            writer = new Thread(this::writeLoop, "stat-hit-writer");
+        }
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        flushRequested = true;
+        writer.join(properties.getMaxFlushDelay().toMillis() + TimeUnit.SECONDS.toMillis(10));
+    }
+
+    /**
+     * Whether a submitted hit is already durable, so callers need not write it synchronously.
+     */
+    public boolean isDurable() {
+        return hitLog.isEnabled();
+    }
+
+    public boolean submit(Stat stat) {
+        accepted.incrementAndGet();
+        boolean queued;
+        if (hitLog.isEnabled()) {
+            queued = hitLog.append(stat);
+            if (!queued) {
+                accepted.decrementAndGet();
+                dropped.incrementAndGet();
+                if (properties.getOverflowPolicy() == OverflowPolicy.REJECT) {
+                    throw new HitQueueOverflowException("Write-ahead log is full, max-bytes=" + walProperties.getMaxBytes());
+                }
+                log.warn("Write-ahead log is full, hit dropped: {}", stat);
+            }
+            return queued;
+        }
+        switch (properties.getOverflowPolicy()) {
+            case BLOCK:
+                try {
+                    queue.put(stat);
+                    queued = true;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    queued = false;
+                }
+                break;
+            case DROP:
+            case REJECT:
+            default:
+                queued = queue.offer(stat);
+        }
+        if (!queued) {
+            accepted.decrementAndGet();
+            dropped.incrementAndGet();
+            if (properties.getOverflowPolicy() == OverflowPolicy.REJECT) {
+                throw new HitQueueOverflowException("Hit queue is full, capacity=" + properties.getQueueCapacity());
+            }
+            log.warn("Hit queue is full, hit dropped: {}", stat);
+        }
+        return queued;
+    }
+
+    public void awaitPersisted() {
+        long target = accepted.get();
+        if (processed.get() >= target) {
+            return;
+        }
+        flushRequested = true;
+        long deadline = System.nanoTime() + properties.getReadBarrierTimeout().toNanos();
+        synchronized (flushMonitor) {
+            long remaining;
+            while (processed.get() < target && (remaining = deadline - System.nanoTime()) > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(flushMonitor, remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    public int getPending() {
+        return hitLog.isEnabled() ? (int) (accepted.get() - processed.get()) : queue.size();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    private void writeLoop() {
+        List<Stat> batch = new ArrayList<>(properties.getBatchSize());
+        while (running || !queue.isEmpty()) {
+            try {
+                fillBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                writeBatch(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void replayLoop() {
+        List<Stat> batch = new ArrayList<>(properties.getBatchSize());
+        long retryMillis = INITIAL_RETRY_MILLIS;
+        int attempts = 0;
+        while (running) {
+            if (batch.isEmpty()) {
+                readBatch(batch);
+                collectUnresolved(batch);
+            }
+            if (batch.isEmpty()) {
+                continue;
+            }
+            long sequence = hitLog.getReadSequence();
+            int size = batch.size();
+            try {
+                if (attempts >= walProperties.getMaxReplayAttempts() && repository.isAvailable()) {
+                    replayEach(batch, sequence);
+                } else {
+                    dictionary.resolve(batch);
+                    repository.saveAll(batch, hitLog.getName(), sequence);
+                }
+            } catch (RuntimeException e) {
+                attempts++;
+                log.error("Failed to replay {} hits up to sequence {}, retrying in {} ms", batch.size(), sequence, retryMillis, e);
+                processed.addAndGet(size - batch.size());
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(retryMillis));
+                retryMillis = Math.min(retryMillis * 2, walProperties.getMaxRetryDelay().toMillis());
+                continue;
+            }
+            attempts = 0;
+            retryMillis = INITIAL_RETRY_MILLIS;
+            hitLog.applied(sequence);
+            recordResolved();
+            processed.addAndGet(size);
+            batch.clear();
+            if (processed.get() >= accepted.get()) {
+                flushRequested = false;
+            }
+            synchronized (flushMonitor) {
+                flushMonitor.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Replays a batch that keeps failing one hit at a time, quarantining the hits the database rejects. Hits are
+     * removed from the front of {@code batch} as they are settled, so a failure part way resumes where it stopped.
+     */
+    private void replayEach(List<Stat> batch, long sequence) {
+        String name = hitLog.getName();
+        while (!batch.isEmpty()) {
+            Stat stat = batch.get(0);
+            long recordSequence = sequence - batch.size() + 1;
+            try {
+                dictionary.resolve(List.of(stat));
+                repository.saveAll(List.of(stat), name, recordSequence);
+            } catch (RuntimeException e) {
+                if (!repository.isAvailable()) {
+                    throw e;
+                }
+                repository.quarantine(stat, name, recordSequence, String.valueOf(e.getMessage()));
+                unresolved.removeIf(hit -> hit == stat);
+                quarantined.incrementAndGet();
+                log.error("Quarantined write-ahead log record {} of {}: {}", recordSequence, name, stat, e);
+            }
+            batch.remove(0);
+        }
+    }
+
+    private void readBatch(List<Stat> batch) {
+        int batchSize = properties.getBatchSize();
+        if (hitLog.read(batch, batchSize) == 0) {
+            LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(FLUSH_POLL_MILLIS));
+            return;
+        }
+        long deadline = System.nanoTime() + properties.getMaxFlushDelay().toNanos();
+        while (batch.size() < batchSize && !flushRequested && running) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                break;
+            }
+            if (hitLog.read(batch, batchSize - batch.size()) == 0) {
+                LockSupport.parkNanos(this, Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(FLUSH_POLL_MILLIS)));
+            }
+        }
+    }
+
+    private void fillBatch(List<Stat> batch) throws InterruptedException {
+        int batchSize = properties.getBatchSize();
+        Stat first = queue.poll(FLUSH_POLL_MILLIS, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + properties.getMaxFlushDelay().toNanos();
+        queue.drainTo(batch, batchSize - batch.size());
+        while (batch.size() < batchSize && !flushRequested && running) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                break;
+            }
+            Stat next = queue.poll(Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(FLUSH_POLL_MILLIS)), TimeUnit.NANOSECONDS);
+            if (next != null) {
+                batch.add(next);
+                queue.drainTo(batch, batchSize - batch.size());
+            }
+        }
+    }
+
+    private void writeBatch(List<Stat> batch) {
+        long retryMillis = INITIAL_RETRY_MILLIS;
+        collectUnresolved(batch);
+        for (int attempt = 0; ; attempt++) {
+            try {
+                dictionary.resolve(batch);
+                repository.saveAll(batch);
+                recordResolved();
+                break;
+            } catch (RuntimeException e) {
+                if (attempt >= properties.getWriteRetries()) {
+                    log.error("Failed to write {} hits after {} retries, hits dropped", batch.size(), attempt, e);
+                    failed.addAndGet(batch.size());
+                    unresolved.clear();
+                    break;
+                }
+                log.warn("Failed to write {} hits, retrying in {} ms", batch.size(), retryMillis, e);
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(retryMillis));
+                retryMillis = Math.min(retryMillis * 2, properties.getMaxRetryDelay().toMillis());
+            }
+        }
+        processed.addAndGet(batch.size());
+        if (queue.isEmpty()) {
+            flushRequested = false;
+        }
+        synchronized (flushMonitor) {
+            flushMonitor.notifyAll();
+        }
+    }
+
+    private void collectUnresolved(List<Stat> batch) {
+        for (Stat stat : batch) {
+            if (!stat.isResolved()) {
+                unresolved.add(stat);
+            }
+        }
+    }
+
+    /**
+     * Records the hits interned by the writer in the in-memory views once their batch is written; hits resolved
+     * from the cache on submit were recorded by the caller already.
+     */
+    private void recordResolved() {
+        for (Stat stat : unresolved) {
+            hotWindow.record(stat);
+            topUriTracker.record(stat);
+        }
+        unresolved.clear();
+    }
+}
@@ -0,0 +1,20 @@
+package ru.practicum.ingest;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "stat-server.ingest")
+public class IngestionProperties {
+    private int batchSize = 500;
+    private Duration maxFlushDelay = Duration.ofMillis(50);
+    private int queueCapacity = 100_000;
+    private OverflowPolicy overflowPolicy = OverflowPolicy.REJECT;
+    private Duration readBarrierTimeout = Duration.ofSeconds(1);
+    private int writeRetries = 3;
+    private Duration maxRetryDelay = Duration.ofSeconds(1);
+}
@@ -0,0 +1,7 @@
+package ru.practicum.ingest;
+
+public enum OverflowPolicy {
+    BLOCK,
+    DROP,
+    REJECT
+}
@@ -4,11 +4,17 @@ import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import ru.practicum.dto.StatDto;
 import ru.practicum.model.Stat;
+import ru.practicum.other.IpAddresses;
 
-import static ru.practicum.other.Constants.DATE_PATTERN;
+import java.util.List;
 
-@Mapper(componentModel = "spring")
+@Mapper(componentModel = "spring", uses = IpAddresses.class)
 public interface StatMapper {
-    @Mapping(target = "timestamp", dateFormat = DATE_PATTERN)
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "appId", ignore = true)
+    @Mapping(target = "uriId", ignore = true)
+    @Mapping(target = "ip", source = "ip", qualifiedByName = "ipToBytes")
     Stat toStat(StatDto dto);
-}
\ No newline at end of file
+
+    List<Stat> toStats(List<StatDto> dtos);
+}
@@ -16,12 +16,23 @@ public class Stat {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
-    @Column(nullable = false, length = 50)
-    private String app;
-    @Column(nullable = false, length = 150)
-    private String uri;
-    @Column(length = 150)
-    private String ip;
+    @Column(name = "app_id", nullable = false)
+    private Integer appId;
+    @Column(name = "uri_id", nullable = false)
+    private Integer uriId;
+    @Column(length = 16)
+    private byte[] ip;
     @Column(nullable = false)
     private LocalDateTime timestamp;
-}
\ No newline at end of file
+    /**
+     * App name and uri as received; the dictionary ids are resolved off the request thread by the writer.
+     */
+    @Transient
+    private String app;
+    @Transient
+    private String uri;
+
+    public boolean isResolved() {
+        return appId != null && uriId != null;
+    }
+}
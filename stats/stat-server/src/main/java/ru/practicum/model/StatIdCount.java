@@ -0,0 +1,12 @@
+package ru.practicum.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class StatIdCount {
+    private Integer appId;
+    private Integer uriId;
+    private Long hits;
+}
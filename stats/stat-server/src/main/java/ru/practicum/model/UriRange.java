@@ -0,0 +1,13 @@
+package ru.practicum.model;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+@Value
+public class UriRange {
+    int uriId;
+    LocalDateTime from;
+    LocalDateTime to;
+    boolean inclusiveEnd;
+}
@@ -0,0 +1,94 @@
+package ru.practicum.other;
+
+import lombok.experimental.UtilityClass;
+import org.mapstruct.Named;
+import ru.practicum.exception.InvalidIpException;
+
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * Converts textual IPv4/IPv6 addresses to the 16-byte form stored in {@code stats.ip}.
+ * IPv4 addresses are stored IPv4-mapped ({@code ::ffff:a.b.c.d}) and rendered back in dotted form.
+ * Only literals are accepted, so parsing never falls through to a DNS lookup.
+ */
+@UtilityClass
+public class IpAddresses {
+    public static final int LENGTH = 16;
+
+    @Named("ipToBytes")
+    public static byte[] toBytes(String ip) {
+        if (ip == null) {
+            return null;
+        }
+        byte[] bytes = new byte[LENGTH];
+        if (ip.indexOf(':') < 0) {
+            bytes[10] = (byte) 0xff;
+            bytes[11] = (byte) 0xff;
+            parseIpv4(ip, bytes);
+            return bytes;
+        }
+        char first = ip.charAt(0);
+        if (first != ':' && first != '[' && Character.digit(first, 16) < 0) {
+            throw new InvalidIpException(ip);
+        }
+        InetAddress address;
+        try {
+            address = InetAddress.getByName(ip);
+        } catch (UnknownHostException e) {
+            throw new InvalidIpException(ip);
+        }
+        byte[] raw = address.getAddress();
+        if (raw.length == LENGTH) {
+            return raw;
+        }
+        bytes[10] = (byte) 0xff;
+        bytes[11] = (byte) 0xff;
+        System.arraycopy(raw, 0, bytes, 12, raw.length);
+        return bytes;
+    }
+
+    public static String toString(byte[] bytes) {
+        if (bytes == null) {
+            return null;
+        }
+        boolean mapped = true;
+        for (int i = 0; i < 12 && mapped; i++) {
+            mapped = bytes[i] == (i < 10 ? 0 : (byte) 0xff);
+        }
+        if (mapped) {
+            return (bytes[12] & 0xff) + "." + (bytes[13] & 0xff) + "." + (bytes[14] & 0xff) + "." + (bytes[15] & 0xff);
+        }
+        try {
+            return Inet6Address.getByAddress(bytes).getHostAddress();
+        } catch (UnknownHostException e) {
+            throw new IllegalArgumentException("Invalid IPv6 address length: " + bytes.length, e);
+        }
+    }
+
+    private static void parseIpv4(String ip, byte[] target) {
+        int octet = -1;
+        int index = 12;
+        for (int i = 0; i <= ip.length(); i++) {
+            char c = i < ip.length() ? ip.charAt(i) : '.';
+            if (c == '.') {
+                if (octet < 0 || index == LENGTH) {
+                    throw new InvalidIpException(ip);
+                }
+                target[index++] = (byte) octet;
+                octet = -1;
+            } else if (c >= '0' && c <= '9') {
+                octet = (octet < 0 ? 0 : octet * 10) + (c - '0');
+                if (octet > 255) {
+                    throw new InvalidIpException(ip);
+                }
+            } else {
+                throw new InvalidIpException(ip);
+            }
+        }
+        if (index != LENGTH) {
+            throw new InvalidIpException(ip);
+        }
+    }
+}
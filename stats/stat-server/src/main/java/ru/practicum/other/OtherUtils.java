@@ -1,7 +1,11 @@
 package ru.practicum.other;
 
 import lombok.experimental.UtilityClass;
+import org.springframework.jdbc.core.support.AbstractSqlTypeValue;
 
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.time.format.DateTimeFormatter;
 
 import static ru.practicum.other.Constants.DATE_PATTERN;
@@ -13,4 +17,13 @@ public class OtherUtils {
     public static DateTimeFormatter getFormatter() {
         return formatter;
     }
+
+    public static AbstractSqlTypeValue sqlArray(String elementType, Object[] values) {
+        return new AbstractSqlTypeValue() {
+            @Override
+            protected Array createTypeValue(Connection connection, int sqlType, String typeName) throws SQLException {
+                return connection.createArrayOf(elementType, values);
+            }
+        };
+    }
 }
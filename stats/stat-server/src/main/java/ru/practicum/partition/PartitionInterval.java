@@ -0,0 +1,39 @@
+package ru.practicum.partition;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+
+public enum PartitionInterval {
+    DAILY(ChronoUnit.DAYS, DateTimeFormatter.ofPattern("yyyyMMdd")),
+    MONTHLY(ChronoUnit.MONTHS, DateTimeFormatter.ofPattern("yyyyMM"));
+
+    private final ChronoUnit unit;
+    private final DateTimeFormatter suffixFormatter;
+
+    PartitionInterval(ChronoUnit unit, DateTimeFormatter suffixFormatter) {
+        this.unit = unit;
+        this.suffixFormatter = suffixFormatter;
+    }
+
+    public LocalDate floor(LocalDate date) {
+        return this == MONTHLY ? date.withDayOfMonth(1) : date;
+    }
+
+    public LocalDate next(LocalDate from) {
+        return from.plus(1, unit);
+    }
+
+    public String suffix(LocalDate from) {
+        return from.format(suffixFormatter);
+    }
+
+    public LocalDate parse(String suffix) {
+        return this == MONTHLY ? YearMonth.parse(suffix, suffixFormatter).atDay(1) : LocalDate.parse(suffix, suffixFormatter);
+    }
+
+    public static PartitionInterval ofSuffix(String suffix) {
+        return suffix.length() == 6 ? MONTHLY : DAILY;
+    }
+}
@@ -0,0 +1,16 @@
+package ru.practicum.partition;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "stat-server.partitions")
+public class PartitionProperties {
+    private PartitionInterval interval = PartitionInterval.MONTHLY;
+    private int ahead = 2;
+    private Duration retention;
+}
@@ -0,0 +1,159 @@
+package ru.practicum.partition;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.rollup.RollupGranularity;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the range-partitioned {@code stats} table in shape: creates partitions for the current and upcoming
+ * intervals (moving matching rows out of the default partition) and detaches and drops partitions
+ * that are older than the retention period.
+ * <p>
+ * The same day-aligned cutoff is applied to the rollup and sketch tables, and queries are clamped to it through
+ * {@link #getRetentionCutoff()}, so raw, rollup and sketch counts agree about what has expired even while
+ * a partially expired raw partition is still attached.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StatPartitionManager {
+    private static final String PARENT_TABLE = "stats";
+    private static final String DEFAULT_PARTITION = "stats_default";
+    private static final String PARTITION_PREFIX = "stats_p";
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PartitionProperties properties;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${stat-server.partitions.maintenance-cron}")
+    public void maintain() {
+        try {
+            List<Range> existing = getPartitions();
+            createUpcomingPartitions(existing);
+            LocalDateTime cutoff = getRetentionCutoff();
+            if (cutoff != null) {
+                dropExpiredPartitions(existing, cutoff);
+                deleteExpiredRollups(cutoff);
+            }
+        } catch (RuntimeException e) {
+            log.error("Partition maintenance failed, retrying on the next run", e);
+        }
+    }
+
+    /**
+     * Returns the start of the oldest day still retained, or {@code null} if hits are kept forever.
+     */
+    public LocalDateTime getRetentionCutoff() {
+        if (properties.getRetention() == null) {
+            return null;
+        }
+        return RollupGranularity.DAY.floor(LocalDateTime.now().minus(properties.getRetention()));
+    }
+
+    private void createUpcomingPartitions(List<Range> existing) {
+        PartitionInterval interval = properties.getInterval();
+        LocalDate from = interval.floor(LocalDate.now());
+        for (int i = 0; i <= properties.getAhead(); i++) {
+            LocalDate to = interval.next(from);
+            Range range = new Range(PARTITION_PREFIX + interval.suffix(from), from, to);
+            if (existing.stream().noneMatch(range::overlaps)) {
+                transactionTemplate.executeWithoutResult(status -> createPartition(range));
+                existing.add(range);
+                log.info("Created partition {} for [{}, {})", range.name, range.from, range.to);
+            }
+            from = to;
+        }
+    }
+
+    /**
+     * Moves the rows of the range out of the default partition and attaches the new partition. The default partition
+     * is locked first, so the writer cannot commit a row of the range between the move and the attach, which would
+     * make the attach fail its default partition check.
+     */
+    private void createPartition(Range range) {
+        Timestamp from = Timestamp.valueOf(range.from.atStartOfDay());
+        Timestamp to = Timestamp.valueOf(range.to.atStartOfDay());
+        jdbcTemplate.execute("lock table " + DEFAULT_PARTITION + " in access exclusive mode");
+        jdbcTemplate.execute("create table " + range.name + " (like " + PARENT_TABLE + " including defaults)");
+        jdbcTemplate.update("insert into " + range.name + " select * from " + DEFAULT_PARTITION +
+                " where timestamp >= ? and timestamp < ?", from, to);
+        jdbcTemplate.update("delete from " + DEFAULT_PARTITION + " where timestamp >= ? and timestamp < ?", from, to);
+        jdbcTemplate.execute("alter table " + PARENT_TABLE + " attach partition " + range.name +
+                " for values from ('" + from + "') to ('" + to + "')");
+    }
+
+    private void dropExpiredPartitions(List<Range> existing, LocalDateTime cutoff) {
+        for (Range range : existing) {
+            if (!range.to.atStartOfDay().isAfter(cutoff)) {
+                transactionTemplate.executeWithoutResult(status -> {
+                    jdbcTemplate.execute("alter table " + PARENT_TABLE + " detach partition " + range.name);
+                    jdbcTemplate.execute("drop table " + range.name);
+                });
+                log.info("Dropped expired partition {} for [{}, {})", range.name, range.from, range.to);
+            }
+        }
+        int deleted = jdbcTemplate.update("delete from " + DEFAULT_PARTITION + " where timestamp < ?", Timestamp.valueOf(cutoff));
+        if (deleted > 0) {
+            log.info("Deleted {} expired hits from {}", deleted, DEFAULT_PARTITION);
+        }
+    }
+
+    private void deleteExpiredRollups(LocalDateTime cutoff) {
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            deleteExpiredBuckets(granularity.getTable(), cutoff);
+            if (granularity.hasSketch()) {
+                deleteExpiredBuckets(granularity.getSketchTable(), cutoff);
+            }
+        }
+    }
+
+    private void deleteExpiredBuckets(String table, LocalDateTime cutoff) {
+        int deleted = jdbcTemplate.update("delete from " + table + " where bucket < ?", Timestamp.valueOf(cutoff));
+        if (deleted > 0) {
+            log.info("Deleted {} expired buckets from {}", deleted, table);
+        }
+    }
+
+    private List<Range> getPartitions() {
+        List<Range> ranges = new ArrayList<>();
+        List<String> names = jdbcTemplate.queryForList("select c.relname from pg_inherits i " +
+                "join pg_class c on c.oid = i.inhrelid " +
+                "join pg_class p on p.oid = i.inhparent " +
+                "where p.relname = ? and c.relname like ?", String.class, PARENT_TABLE, PARTITION_PREFIX + "%");
+        for (String name : names) {
+            String suffix = name.substring(PARTITION_PREFIX.length());
+            PartitionInterval interval = PartitionInterval.ofSuffix(suffix);
+            LocalDate from = interval.parse(suffix);
+            ranges.add(new Range(name, from, interval.next(from)));
+        }
+        return ranges;
+    }
+
+    private static final class Range {
+        private final String name;
+        private final LocalDate from;
+        private final LocalDate to;
+
+        private Range(String name, LocalDate from, LocalDate to) {
+            this.name = name;
+            this.from = from;
+            this.to = to;
+        }
+
+        private boolean overlaps(Range other) {
+            return from.isBefore(other.to) && other.from.isBefore(to);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package ru.practicum.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.cache.HitsPersistedEvent;
+import ru.practicum.model.Stat;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class StatBatchRepository {
+    private static final String INSERT_STAT = "insert into stats (app_id, uri_id, ip, timestamp) values (?, ?, ?, ?)";
+    private final JdbcTemplate jdbcTemplate;
+    private final StatRollupRepository rollupRepository;
+    private final StatSketchRepository sketchRepository;
+    private final WalCheckpointRepository checkpointRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Transactional
+    public void saveAll(List<Stat> stats) {
+        jdbcTemplate.batchUpdate(INSERT_STAT, stats, stats.size(), (ps, stat) -> {
+            ps.setInt(1, stat.getAppId());
+            ps.setInt(2, stat.getUriId());
+            ps.setBytes(3, stat.getIp());
+            ps.setTimestamp(4, Timestamp.valueOf(stat.getTimestamp()));
+        });
+        rollupRepository.addHits(stats);
+        sketchRepository.addHits(stats);
+        eventPublisher.publishEvent(new HitsPersistedEvent(stats));
+    }
+
+    /**
+     * Saves hits replayed from the write-ahead log and records {@code sequence} as applied in the same transaction.
+     */
+    @Transactional
+    public void saveAll(List<Stat> stats, String log, long sequence) {
+        saveAll(stats);
+        checkpointRepository.save(log, sequence);
+    }
+
+    /**
+     * Sets aside a replayed hit that cannot be written and records {@code sequence} as applied in the same transaction.
+     */
+    @Transactional
+    public void quarantine(Stat stat, String log, long sequence, String error) {
+        checkpointRepository.quarantine(log, sequence, stat, error);
+        checkpointRepository.save(log, sequence);
+    }
+
+    /**
+     * Whether the database answers at all, telling an outage apart from a batch it rejects.
+     */
+    public boolean isAvailable() {
+        try {
+            jdbcTemplate.queryForObject("select 1", Integer.class);
+            return true;
+        } catch (DataAccessException e) {
+            return false;
+        }
+    }
+}
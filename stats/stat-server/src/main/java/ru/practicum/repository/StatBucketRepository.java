@@ -0,0 +1,49 @@
+package ru.practicum.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.model.UriRange;
+import ru.practicum.rollup.BucketKey;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+import static ru.practicum.other.OtherUtils.sqlArray;
+
+/**
+ * Loads per-(uri, day) aggregates for exactly the requested days, each given as a {@link UriRange} covering one day:
+ * hits from the {@code stats_day} rollup and distinct ips from the raw rows of those days only.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StatBucketRepository {
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public void forEachDailyCount(List<UriRange> days, BiConsumer<BucketKey, Long> consumer) {
+        Object[] uriIds = new Object[days.size()];
+        Object[] buckets = new Object[days.size()];
+        for (int i = 0; i < days.size(); i++) {
+            uriIds[i] = days.get(i).getUriId();
+            buckets[i] = Timestamp.valueOf(days.get(i).getFrom());
+        }
+        jdbcTemplate.query("select d.app_id, d.uri_id, d.bucket, d.hits from stats_day d " +
+                "join unnest(cast(:uriIds as integer[]), cast(:buckets as timestamp[])) as k(uri_id, bucket) " +
+                "on d.uri_id = k.uri_id and d.bucket = k.bucket", new MapSqlParameterSource()
+                .addValue("uriIds", sqlArray("integer", uriIds))
+                .addValue("buckets", sqlArray("timestamp", buckets)), rs -> {
+                    consumer.accept(new BucketKey(rs.getInt("app_id"), rs.getInt("uri_id"),
+                            rs.getTimestamp("bucket").toLocalDateTime()), rs.getLong("hits"));
+                });
+    }
+
+    public void forEachDailyDistinctIp(List<UriRange> days, BiConsumer<BucketKey, byte[]> consumer) {
+        jdbcTemplate.query("select distinct s.app_id, s.uri_id, r.from_ts as bucket, s.ip from stats s " +
+                UriRanges.JOIN + "and s.ip is not null", UriRanges.parameters(days), rs -> {
+                    consumer.accept(new BucketKey(rs.getInt("app_id"), rs.getInt("uri_id"),
+                            rs.getTimestamp("bucket").toLocalDateTime()), rs.getBytes("ip"));
+                });
+    }
+}
@@ -0,0 +1,130 @@
+package ru.practicum.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.model.Stat;
+import ru.practicum.model.StatKey;
+import ru.practicum.model.UriRange;
+import ru.practicum.rollup.BucketKey;
+import ru.practicum.rollup.RollupGranularity;
+import ru.practicum.rollup.RollupPlanner;
+import ru.practicum.rollup.RollupSegment;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+@Repository
+@RequiredArgsConstructor
+public class StatRollupRepository {
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public void addHits(List<Stat> stats) {
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            Map<BucketKey, Long> hits = new TreeMap<>();
+            for (Stat stat : stats) {
+                if (stat.getIp() != null) {
+                    hits.merge(new BucketKey(stat.getAppId(), stat.getUriId(), granularity.floor(stat.getTimestamp())), 1L, Long::sum);
+                }
+            }
+            if (hits.isEmpty()) {
+                continue;
+            }
+            String sql = "insert into " + granularity.getTable() + " (app_id, uri_id, bucket, hits) " +
+                    "values (:appId, :uriId, :bucket, :hits) " +
+                    "on conflict (app_id, uri_id, bucket) do update set hits = " + granularity.getTable() + ".hits + excluded.hits";
+            MapSqlParameterSource[] batch = hits.entrySet().stream()
+                    .map(entry -> new MapSqlParameterSource()
+                            .addValue("appId", entry.getKey().getAppId())
+                            .addValue("uriId", entry.getKey().getUriId())
+                            .addValue("bucket", Timestamp.valueOf(entry.getKey().getBucket()))
+                            .addValue("hits", entry.getValue()))
+                    .toArray(MapSqlParameterSource[]::new);
+            jdbcTemplate.batchUpdate(sql, batch);
+        }
+    }
+
+    public Map<StatKey, Long> getCounts(LocalDateTime start, LocalDateTime end, boolean inclusiveEnd, List<Integer> uriIds) {
+        Map<StatKey, Long> counts = new HashMap<>();
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        String sql = countsQuery(start, end, inclusiveEnd, uriIds, parameters);
+        if (sql == null) {
+            return counts;
+        }
+        jdbcTemplate.query(sql, parameters,
+                rs -> {
+                    counts.put(new StatKey(rs.getInt("app_id"), rs.getInt("uri_id")), rs.getLong("hits"));
+                });
+        return counts;
+    }
+
+    /**
+     * Counts hits for every uri over its own range. Each range is planned like a shared one, so whole minutes, hours
+     * and days come from the rollup tables and only the sub-minute edges from raw {@code stats}, with one scan per tier.
+     */
+    public Map<StatKey, Long> getCounts(List<UriRange> ranges) {
+        Map<StatKey, Long> counts = new HashMap<>();
+        Map<RollupGranularity, List<UriRange>> buckets = new EnumMap<>(RollupGranularity.class);
+        List<UriRange> raw = new ArrayList<>();
+        for (UriRange range : ranges) {
+            for (RollupSegment segment : RollupPlanner.plan(range.getFrom(), range.getTo(), range.isInclusiveEnd(),
+                    RollupGranularity.MINUTE)) {
+                UriRange part = new UriRange(range.getUriId(), segment.getFrom(), segment.getTo(), segment.isInclusiveEnd());
+                if (segment.isRaw()) {
+                    raw.add(part);
+                } else {
+                    buckets.computeIfAbsent(segment.getGranularity(), granularity -> new ArrayList<>()).add(part);
+                }
+            }
+        }
+        RowCallbackHandler addCount = rs -> {
+            counts.merge(new StatKey(rs.getInt("app_id"), rs.getInt("uri_id")), rs.getLong("hits"), Long::sum);
+        };
+        buckets.forEach((granularity, parts) -> jdbcTemplate.query("select b.app_id, b.uri_id, sum(b.hits) as hits " +
+                "from " + granularity.getTable() + " b " + UriRanges.BUCKET_JOIN + "group by b.app_id, b.uri_id",
+                UriRanges.parameters(parts), addCount));
+        if (!raw.isEmpty()) {
+            jdbcTemplate.query("select s.app_id, s.uri_id, count(s.ip) as hits from stats s " +
+                    UriRanges.JOIN + "group by s.app_id, s.uri_id", UriRanges.parameters(raw), addCount);
+        }
+        return counts;
+    }
+
+    /**
+     * Builds the query summing hits per (app_id, uri_id) over the rollup and raw segments covering the range,
+     * or returns {@code null} if the range is empty.
+     */
+    String countsQuery(LocalDateTime start, LocalDateTime end, boolean inclusiveEnd, List<Integer> uriIds,
+                       MapSqlParameterSource parameters) {
+        List<RollupSegment> segments = RollupPlanner.plan(start, end, inclusiveEnd, RollupGranularity.MINUTE);
+        if (segments.isEmpty()) {
+            return null;
+        }
+        String uriFilter = "";
+        if (uriIds != null) {
+            parameters.addValue("uriIds", uriIds);
+            uriFilter = "and uri_id in (:uriIds) ";
+        }
+        StringJoiner union = new StringJoiner(" union all ");
+        for (int i = 0; i < segments.size(); i++) {
+            RollupSegment segment = segments.get(i);
+            parameters.addValue("from" + i, Timestamp.valueOf(segment.getFrom()));
+            parameters.addValue("to" + i, Timestamp.valueOf(segment.getTo()));
+            String upperBound = segment.isInclusiveEnd() ? " <= :to" : " < :to";
+            if (segment.isRaw()) {
+                union.add("select app_id, uri_id, count(ip) as hits from stats " +
+                        "where timestamp >= :from" + i + " and timestamp" + upperBound + i + " " + uriFilter +
+                        "group by app_id, uri_id");
+            } else {
+                union.add("select app_id, uri_id, sum(hits) as hits from " + segment.getGranularity().getTable() + " " +
+                        "where bucket >= :from" + i + " and bucket < :to" + i + " " + uriFilter +
+                        "group by app_id, uri_id");
+            }
+        }
+        return "select app_id, uri_id, sum(hits) as hits from (" + union + ") s " +
+                "group by app_id, uri_id";
+    }
+}
@@ -0,0 +1,151 @@
+package ru.practicum.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.model.Stat;
+import ru.practicum.model.StatKey;
+import ru.practicum.model.UriRange;
+import ru.practicum.rollup.BucketKey;
+import ru.practicum.rollup.HyperLogLog;
+import ru.practicum.rollup.RollupGranularity;
+import ru.practicum.rollup.RollupPlanner;
+import ru.practicum.rollup.RollupSegment;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+
+import static ru.practicum.other.OtherUtils.sqlArray;
+
+@Repository
+@RequiredArgsConstructor
+public class StatSketchRepository {
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public void addHits(List<Stat> stats) {
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            if (!granularity.hasSketch()) {
+                continue;
+            }
+            Map<BucketKey, HyperLogLog> sketches = new TreeMap<>();
+            for (Stat stat : stats) {
+                if (stat.getIp() != null) {
+                    sketches.computeIfAbsent(new BucketKey(stat.getAppId(), stat.getUriId(), granularity.floor(stat.getTimestamp())),
+                            key -> new HyperLogLog()).add(stat.getIp());
+                }
+            }
+            if (!sketches.isEmpty()) {
+                mergeSketches(granularity, sketches);
+            }
+        }
+    }
+
+    public Map<StatKey, HyperLogLog> getSketches(LocalDateTime start, LocalDateTime end, boolean inclusiveEnd, List<Integer> uriIds) {
+        Map<StatKey, HyperLogLog> sketches = new HashMap<>();
+        MapSqlParameterSource parameters = uriParameters(uriIds);
+        String uriFilter = uriIds != null ? "and uri_id in (:uriIds) " : "";
+        for (RollupSegment segment : RollupPlanner.plan(start, end, inclusiveEnd, RollupGranularity.HOUR)) {
+            if (segment.isRaw()) {
+                forEachDistinctIp(segment.getFrom(), segment.getTo(), segment.isInclusiveEnd(), uriIds,
+                        (key, ip) -> sketches.computeIfAbsent(key, k -> new HyperLogLog()).add(ip));
+            } else {
+                parameters.addValue("from", Timestamp.valueOf(segment.getFrom()));
+                parameters.addValue("to", Timestamp.valueOf(segment.getTo()));
+                jdbcTemplate.query("select app_id, uri_id, sketch from " + segment.getGranularity().getSketchTable() + " " +
+                        "where bucket >= :from and bucket < :to " + uriFilter, parameters, rs -> {
+                            sketches.computeIfAbsent(new StatKey(rs.getInt("app_id"), rs.getInt("uri_id")), k -> new HyperLogLog())
+                                    .merge(HyperLogLog.fromBytes(rs.getBytes("sketch")));
+                        });
+            }
+        }
+        return sketches;
+    }
+
+    public void forEachDistinctIp(LocalDateTime from, LocalDateTime to, boolean inclusiveEnd, List<Integer> uriIds,
+                                  BiConsumer<StatKey, byte[]> consumer) {
+        MapSqlParameterSource parameters = uriParameters(uriIds)
+                .addValue("from", Timestamp.valueOf(from))
+                .addValue("to", Timestamp.valueOf(to));
+        String upperBound = inclusiveEnd ? "<= :to " : "< :to ";
+        String uriFilter = uriIds != null ? "and uri_id in (:uriIds) " : "";
+        jdbcTemplate.query("select distinct app_id, uri_id, ip from stats " +
+                "where timestamp >= :from and timestamp " + upperBound + uriFilter +
+                "and ip is not null", parameters, rs -> {
+                    consumer.accept(new StatKey(rs.getInt("app_id"), rs.getInt("uri_id")), rs.getBytes("ip"));
+                });
+    }
+
+    public void forEachDistinctIp(List<UriRange> ranges, BiConsumer<StatKey, byte[]> consumer) {
+        if (ranges.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.query("select distinct s.app_id, s.uri_id, s.ip from stats s " +
+                UriRanges.JOIN + "and s.ip is not null", UriRanges.parameters(ranges), rs -> {
+                    consumer.accept(new StatKey(rs.getInt("app_id"), rs.getInt("uri_id")), rs.getBytes("ip"));
+                });
+    }
+
+    public Map<StatKey, Long> getDistinctCounts(List<UriRange> ranges) {
+        Map<StatKey, Long> counts = new HashMap<>();
+        if (ranges.isEmpty()) {
+            return counts;
+        }
+        jdbcTemplate.query("select s.app_id, s.uri_id, count(distinct s.ip) as hits from stats s " +
+                UriRanges.JOIN + "group by s.app_id, s.uri_id", UriRanges.parameters(ranges), rs -> {
+                    counts.put(new StatKey(rs.getInt("app_id"), rs.getInt("uri_id")), rs.getLong("hits"));
+                });
+        return counts;
+    }
+
+    private void mergeSketches(RollupGranularity granularity, Map<BucketKey, HyperLogLog> sketches) {
+        String table = granularity.getSketchTable();
+        MapSqlParameterSource[] keys = sketches.keySet().stream()
+                .map(key -> new MapSqlParameterSource()
+                        .addValue("appId", key.getAppId())
+                        .addValue("uriId", key.getUriId())
+                        .addValue("bucket", Timestamp.valueOf(key.getBucket())))
+                .toArray(MapSqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate("insert into " + table + " (app_id, uri_id, bucket, sketch) " +
+                "values (:appId, :uriId, :bucket, ''::bytea) on conflict (app_id, uri_id, bucket) do nothing", keys);
+
+        List<Integer> appIds = sketches.keySet().stream().map(BucketKey::getAppId).collect(Collectors.toList());
+        List<Integer> uriIds = sketches.keySet().stream().map(BucketKey::getUriId).collect(Collectors.toList());
+        List<Timestamp> buckets = sketches.keySet().stream().map(key -> Timestamp.valueOf(key.getBucket()))
+                .collect(Collectors.toList());
+        MapSqlParameterSource lookup = new MapSqlParameterSource()
+                .addValue("appIds", sqlArray("integer", appIds.toArray()))
+                .addValue("uriIds", sqlArray("integer", uriIds.toArray()))
+                .addValue("buckets", sqlArray("timestamp", buckets.toArray()));
+        jdbcTemplate.query("select s.app_id, s.uri_id, s.bucket, s.sketch from " + table + " s " +
+                "join unnest(cast(:appIds as integer[]), cast(:uriIds as integer[]), cast(:buckets as timestamp[])) " +
+                "as k(app_id, uri_id, bucket) on s.app_id = k.app_id and s.uri_id = k.uri_id and s.bucket = k.bucket " +
+                "order by s.app_id, s.uri_id, s.bucket " +
+                "for update of s", lookup, rs -> {
+                    BucketKey key = new BucketKey(rs.getInt("app_id"), rs.getInt("uri_id"),
+                            rs.getTimestamp("bucket").toLocalDateTime());
+                    sketches.get(key).merge(HyperLogLog.fromBytes(rs.getBytes("sketch")));
+                });
+
+        MapSqlParameterSource[] updates = sketches.entrySet().stream()
+                .map(entry -> new MapSqlParameterSource()
+                        .addValue("appId", entry.getKey().getAppId())
+                        .addValue("uriId", entry.getKey().getUriId())
+                        .addValue("bucket", Timestamp.valueOf(entry.getKey().getBucket()))
+                        .addValue("sketch", entry.getValue().toBytes()))
+                .toArray(MapSqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate("update " + table + " set sketch = :sketch " +
+                "where app_id = :appId and uri_id = :uriId and bucket = :bucket", updates);
+    }
+
+    private static MapSqlParameterSource uriParameters(List<Integer> uriIds) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        if (uriIds != null) {
+            parameters.addValue("uriIds", uriIds);
+        }
+        return parameters;
+    }
+}
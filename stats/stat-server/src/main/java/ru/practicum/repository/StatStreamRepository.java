@@ -0,0 +1,62 @@
+package ru.practicum.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.dto.StatCountDto;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Reads /stats rows through a forward-only cursor, so a result with one row per uri is never held in memory.
+ * PostgreSQL only honours the fetch size inside a transaction, so callers must run in one.
+ */
+@Repository
+public class StatStreamRepository {
+    private static final int FETCH_SIZE = 1000;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final StatRollupRepository rollupRepository;
+
+    public StatStreamRepository(DataSource dataSource, StatRollupRepository rollupRepository) {
+        JdbcTemplate cursorTemplate = new JdbcTemplate(dataSource);
+        cursorTemplate.setFetchSize(FETCH_SIZE);
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(cursorTemplate);
+        this.rollupRepository = rollupRepository;
+    }
+
+    public void streamCounts(LocalDateTime start, LocalDateTime end, List<Integer> uriIds, Consumer<StatCountDto> consumer) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        String counts = rollupRepository.countsQuery(start, end, true, uriIds, parameters);
+        if (counts != null) {
+            stream(counts, parameters, consumer);
+        }
+    }
+
+    public void streamUniqueCounts(LocalDateTime start, LocalDateTime end, List<Integer> uriIds, Consumer<StatCountDto> consumer) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("start", Timestamp.valueOf(start))
+                .addValue("end", Timestamp.valueOf(end));
+        String uriFilter = "";
+        if (uriIds != null) {
+            parameters.addValue("uriIds", uriIds);
+            uriFilter = "and uri_id in (:uriIds) ";
+        }
+        stream("select app_id, uri_id, count(distinct ip) as hits from stats " +
+                "where timestamp >= :start and timestamp <= :end " + uriFilter +
+                "group by app_id, uri_id", parameters, consumer);
+    }
+
+    private void stream(String counts, MapSqlParameterSource parameters, Consumer<StatCountDto> consumer) {
+        jdbcTemplate.query("select a.name as app, u.uri, s.hits from (" + counts + ") s " +
+                "join stat_apps a on a.id = s.app_id " +
+                "join stat_uris u on u.id = s.uri_id " +
+                "order by s.hits desc", parameters, rs -> {
+                    consumer.accept(new StatCountDto(rs.getString("app"), rs.getString("uri"), rs.getLong("hits")));
+                });
+    }
+}
@@ -0,0 +1,54 @@
+package ru.practicum.repository;
+
+import lombok.experimental.UtilityClass;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import ru.practicum.model.UriRange;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static ru.practicum.other.OtherUtils.sqlArray;
+
+/**
+ * Joins {@code stats s} against a list of per-uri time ranges passed as arrays. The outer bounds repeat the union of
+ * the ranges as plain predicates so that partitions outside it are pruned. {@link #BUCKET_JOIN} does the same for
+ * a rollup table {@code b} and ranges of whole buckets.
+ */
+@UtilityClass
+class UriRanges {
+    static final String JOIN = "join unnest(cast(:rangeUriIds as integer[]), cast(:rangeFroms as timestamp[]), " +
+            "cast(:rangeTos as timestamp[]), cast(:rangeInclusive as boolean[])) as r(uri_id, from_ts, to_ts, inclusive_end) " +
+            "on s.uri_id = r.uri_id and s.timestamp >= r.from_ts " +
+            "and (s.timestamp < r.to_ts or (r.inclusive_end and s.timestamp = r.to_ts)) " +
+            "where s.timestamp >= :rangesFrom and s.timestamp <= :rangesTo ";
+    static final String BUCKET_JOIN = "join unnest(cast(:rangeUriIds as integer[]), cast(:rangeFroms as timestamp[]), " +
+            "cast(:rangeTos as timestamp[])) as r(uri_id, from_ts, to_ts) " +
+            "on b.uri_id = r.uri_id and b.bucket >= r.from_ts and b.bucket < r.to_ts " +
+            "where b.bucket >= :rangesFrom and b.bucket < :rangesTo ";
+
+    static MapSqlParameterSource parameters(List<UriRange> ranges) {
+        Object[] uriIds = new Object[ranges.size()];
+        Object[] froms = new Object[ranges.size()];
+        Object[] tos = new Object[ranges.size()];
+        Object[] inclusive = new Object[ranges.size()];
+        LocalDateTime from = ranges.get(0).getFrom();
+        LocalDateTime to = ranges.get(0).getTo();
+        for (int i = 0; i < ranges.size(); i++) {
+            UriRange range = ranges.get(i);
+            uriIds[i] = range.getUriId();
+            froms[i] = Timestamp.valueOf(range.getFrom());
+            tos[i] = Timestamp.valueOf(range.getTo());
+            inclusive[i] = range.isInclusiveEnd();
+            from = range.getFrom().isBefore(from) ? range.getFrom() : from;
+            to = range.getTo().isAfter(to) ? range.getTo() : to;
+        }
+        return new MapSqlParameterSource()
+                .addValue("rangeUriIds", sqlArray("integer", uriIds))
+                .addValue("rangeFroms", sqlArray("timestamp", froms))
+                .addValue("rangeTos", sqlArray("timestamp", tos))
+                .addValue("rangeInclusive", sqlArray("boolean", inclusive))
+                .addValue("rangesFrom", Timestamp.valueOf(from))
+                .addValue("rangesTo", Timestamp.valueOf(to));
+    }
+}
@@ -0,0 +1,30 @@
+package ru.practicum.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.model.Stat;
+
+import java.sql.Timestamp;
+
+@Repository
+@RequiredArgsConstructor
+public class WalCheckpointRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    public long getSequence(String log) {
+        jdbcTemplate.update("insert into stat_wal_checkpoints (log, sequence) values (?, 0) on conflict (log) do nothing", log);
+        Long sequence = jdbcTemplate.queryForObject("select sequence from stat_wal_checkpoints where log = ?", Long.class, log);
+        return sequence != null ? sequence : 0;
+    }
+
+    public void save(String log, long sequence) {
+        jdbcTemplate.update("update stat_wal_checkpoints set sequence = greatest(sequence, ?) where log = ?", sequence, log);
+    }
+
+    public void quarantine(String log, long sequence, Stat stat, String error) {
+        jdbcTemplate.update("insert into stat_wal_quarantine (log, sequence, app_id, uri_id, app, uri, ip, timestamp, error) " +
+                        "values (?, ?, ?, ?, ?, ?, ?, ?, ?) on conflict (log, sequence) do nothing", log, sequence, stat.getAppId(),
+                stat.getUriId(), stat.getApp(), stat.getUri(), stat.getIp(), Timestamp.valueOf(stat.getTimestamp()), error);
+    }
+}
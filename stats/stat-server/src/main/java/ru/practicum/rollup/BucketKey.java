@@ -0,0 +1,21 @@
+package ru.practicum.rollup;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+@Value
+public class BucketKey implements Comparable<BucketKey> {
+    int appId;
+    int uriId;
+    LocalDateTime bucket;
+
+    @Override
+    public int compareTo(BucketKey other) {
+        int result = Integer.compare(appId, other.appId);
+        if (result == 0) {
+            result = Integer.compare(uriId, other.uriId);
+        }
+        return result == 0 ? bucket.compareTo(other.bucket) : result;
+    }
+}
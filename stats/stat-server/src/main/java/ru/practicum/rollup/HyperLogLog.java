@@ -0,0 +1,119 @@
+package ru.practicum.rollup;
+
+/**
+ * HyperLogLog distinct counter with 2^12 one-byte registers.
+ * The relative standard error of {@link #estimate()} is 1.04 / sqrt(4096) ≈ 1.6%,
+ * so about 95% of estimates fall within ±3.3% of the exact distinct count.
+ * Sketches of the same precision merge losslessly by taking the register-wise maximum.
+ * <p>
+ * {@link #toBytes()} writes the registers densely (4 KiB) or, while fewer registers are set than that takes,
+ * sparsely as {@code [index:2][rank:1]} per set register, so the sketch of a small bucket costs a few bytes.
+ */
+public class HyperLogLog {
+    public static final int PRECISION = 12;
+    public static final int REGISTERS = 1 << PRECISION;
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTERS);
+    private static final int SPARSE_ENTRY = Short.BYTES + 1;
+    private static final int MAX_RANK = Long.SIZE - PRECISION + 1;
+    private final byte[] registers;
+
+    public HyperLogLog() {
+        this.registers = new byte[REGISTERS];
+    }
+
+    private HyperLogLog(byte[] registers) {
+        this.registers = registers;
+    }
+
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return new HyperLogLog();
+        }
+        if (bytes.length == REGISTERS) {
+            return new HyperLogLog(bytes.clone());
+        }
+        if (bytes.length % SPARSE_ENTRY != 0) {
+            throw new IllegalArgumentException("Sketch must have " + REGISTERS + " registers or sparse entries, got "
+                    + bytes.length + " bytes");
+        }
+        byte[] registers = new byte[REGISTERS];
+        for (int i = 0; i < bytes.length; i += SPARSE_ENTRY) {
+            int index = ((bytes[i] & 0xff) << 8) | (bytes[i + 1] & 0xff);
+            int rank = bytes[i + 2];
+            if (index >= REGISTERS || rank <= 0 || rank > MAX_RANK) {
+                throw new IllegalArgumentException("Invalid sparse sketch entry " + index + "=" + rank);
+            }
+            registers[index] = (byte) rank;
+        }
+        return new HyperLogLog(registers);
+    }
+
+    public void add(byte[] value) {
+        long hash = hash(value);
+        int index = (int) (hash >>> (Long.SIZE - PRECISION));
+        int rank = Long.numberOfLeadingZeros((hash << PRECISION) | (1L << (PRECISION - 1))) + 1;
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    public void merge(HyperLogLog other) {
+        for (int i = 0; i < REGISTERS; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    public long estimate() {
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double estimate = ALPHA * REGISTERS * REGISTERS / sum;
+        if (estimate <= 2.5 * REGISTERS && zeros > 0) {
+            estimate = REGISTERS * Math.log((double) REGISTERS / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    public byte[] toBytes() {
+        int set = 0;
+        for (byte register : registers) {
+            if (register != 0) {
+                set++;
+            }
+        }
+        if (set * SPARSE_ENTRY >= REGISTERS) {
+            return registers.clone();
+        }
+        byte[] bytes = new byte[set * SPARSE_ENTRY];
+        int position = 0;
+        for (int i = 0; i < REGISTERS; i++) {
+            if (registers[i] != 0) {
+                bytes[position++] = (byte) (i >>> 8);
+                bytes[position++] = (byte) i;
+                bytes[position++] = registers[i];
+            }
+        }
+        return bytes;
+    }
+
+    private static long hash(byte[] value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
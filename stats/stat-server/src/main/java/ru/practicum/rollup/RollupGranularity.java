@@ -0,0 +1,41 @@
+package ru.practicum.rollup;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+public enum RollupGranularity {
+    MINUTE("stats_minute", null, ChronoUnit.MINUTES),
+    HOUR("stats_hour", "stats_hour_sketch", ChronoUnit.HOURS),
+    DAY("stats_day", "stats_day_sketch", ChronoUnit.DAYS);
+
+    private final String table;
+    private final String sketchTable;
+    private final ChronoUnit unit;
+
+    RollupGranularity(String table, String sketchTable, ChronoUnit unit) {
+        this.table = table;
+        this.sketchTable = sketchTable;
+        this.unit = unit;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public String getSketchTable() {
+        return sketchTable;
+    }
+
+    public boolean hasSketch() {
+        return sketchTable != null;
+    }
+
+    public LocalDateTime floor(LocalDateTime time) {
+        return time.truncatedTo(unit);
+    }
+
+    public LocalDateTime ceil(LocalDateTime time) {
+        LocalDateTime floor = floor(time);
+        return floor.equals(time) ? floor : floor.plus(1, unit);
+    }
+}
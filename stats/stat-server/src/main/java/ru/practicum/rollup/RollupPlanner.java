@@ -0,0 +1,57 @@
+package ru.practicum.rollup;
+
+import lombok.experimental.UtilityClass;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@UtilityClass
+public class RollupPlanner {
+    private static final RollupGranularity[] COARSEST_FIRST = {RollupGranularity.DAY, RollupGranularity.HOUR,
+            RollupGranularity.MINUTE};
+
+    public static List<RollupSegment> plan(LocalDateTime start, LocalDateTime end, boolean inclusiveEnd,
+                                           RollupGranularity finest) {
+        List<RollupSegment> segments = new ArrayList<>();
+        if (start.isAfter(end) || (!inclusiveEnd && !start.isBefore(end))) {
+            return segments;
+        }
+        LocalDateTime bucketsFrom = finest.ceil(start);
+        LocalDateTime bucketsTo = finest.floor(end);
+        if (!bucketsFrom.isBefore(bucketsTo)) {
+            segments.add(new RollupSegment(null, start, end, inclusiveEnd));
+            return segments;
+        }
+        if (start.isBefore(bucketsFrom)) {
+            segments.add(new RollupSegment(null, start, bucketsFrom, false));
+        }
+        cover(bucketsFrom, bucketsTo, 0, finest, segments);
+        if (inclusiveEnd || bucketsTo.isBefore(end)) {
+            segments.add(new RollupSegment(null, bucketsTo, end, inclusiveEnd));
+        }
+        return segments;
+    }
+
+    private static void cover(LocalDateTime from, LocalDateTime to, int level, RollupGranularity finest,
+                              List<RollupSegment> segments) {
+        RollupGranularity granularity = COARSEST_FIRST[level];
+        if (granularity == finest) {
+            segments.add(new RollupSegment(granularity, from, to, false));
+            return;
+        }
+        LocalDateTime alignedFrom = granularity.ceil(from);
+        LocalDateTime alignedTo = granularity.floor(to);
+        if (!alignedFrom.isBefore(alignedTo)) {
+            cover(from, to, level + 1, finest, segments);
+            return;
+        }
+        if (from.isBefore(alignedFrom)) {
+            cover(from, alignedFrom, level + 1, finest, segments);
+        }
+        segments.add(new RollupSegment(granularity, alignedFrom, alignedTo, false));
+        if (alignedTo.isBefore(to)) {
+            cover(alignedTo, to, level + 1, finest, segments);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package ru.practicum.rollup;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Part of a query window: either whole buckets of {@code granularity} in {@code [from, to)},
+ * or raw hits when {@code granularity} is null. A raw segment includes {@code to} when {@code inclusiveEnd} is set.
+ */
+@Data
+@AllArgsConstructor
+public class RollupSegment {
+    private RollupGranularity granularity;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private boolean inclusiveEnd;
+
+    public boolean isRaw() {
+        return granularity == null;
+    }
+}
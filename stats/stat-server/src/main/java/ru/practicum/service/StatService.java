@@ -1,13 +1,28 @@
 package ru.practicum.service;
 
+import ru.practicum.dto.EventViewsRequestDto;
 import ru.practicum.dto.StatDto;
 import ru.practicum.dto.StatCountDto;
+import ru.practicum.dto.StatTopCountDto;
+import ru.practicum.topk.TopWindow;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public interface StatService {
     void createStat(StatDto stat);
 
-    List<StatCountDto> getStats(LocalDateTime start, LocalDateTime end, Boolean unique, List<String> uris);
+    void createStats(List<StatDto> stats);
+
+    List<StatCountDto> getStats(LocalDateTime start, LocalDateTime end, Boolean unique, List<String> uris,
+                                List<LocalDateTime> starts, Boolean approximate);
+
+    List<StatTopCountDto> getTop(TopWindow window, int limit);
+
+    Map<Long, Long> getEventViews(EventViewsRequestDto request);
+
+    void streamStats(LocalDateTime start, LocalDateTime end, Boolean unique, List<String> uris, List<LocalDateTime> starts,
+                     Boolean approximate, Consumer<StatCountDto> consumer);
 }
\ No newline at end of file
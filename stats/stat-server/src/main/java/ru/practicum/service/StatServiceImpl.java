@@ -1,14 +1,40 @@
 package ru.practicum.service;
 
 import lombok.RequiredArgsConstructor;
+import lombok.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.cache.ClosedBucketCache;
+import ru.practicum.dictionary.StatDictionary;
+import ru.practicum.dto.EventViewsRequestDto;
 import ru.practicum.dto.StatDto;
+import ru.practicum.ingest.HitIngestionPipeline;
 import ru.practicum.mapper.StatMapper;
+import ru.practicum.model.Stat;
+import ru.practicum.model.StatIdCount;
+import ru.practicum.model.StatKey;
+import ru.practicum.model.UriRange;
+import ru.practicum.partition.StatPartitionManager;
+import ru.practicum.repository.StatBatchRepository;
 import ru.practicum.repository.StatRepository;
+import ru.practicum.repository.StatRollupRepository;
+import ru.practicum.repository.StatSketchRepository;
+import ru.practicum.repository.StatStreamRepository;
 import ru.practicum.dto.StatCountDto;
+import ru.practicum.dto.StatTopCountDto;
+import ru.practicum.exception.BadRequestException;
+import ru.practicum.rollup.HyperLogLog;
+import ru.practicum.rollup.RollupGranularity;
+import ru.practicum.topk.SpaceSaving;
+import ru.practicum.topk.TopUriTracker;
+import ru.practicum.topk.TopWindow;
+import ru.practicum.window.HotWindow;
 
+import java.nio.ByteBuffer;
 import java.time.LocalDateTime;
-import java.util.List;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 
 @Service
@@ -16,15 +42,363 @@ import java.util.List;
 public class StatServiceImpl implements StatService {
     private final StatRepository statRepository;
     private final StatMapper statMapper;
+    private final StatBatchRepository statBatchRepository;
+    private final StatRollupRepository statRollupRepository;
+    private final StatSketchRepository statSketchRepository;
+    private final StatStreamRepository statStreamRepository;
+    private final HitIngestionPipeline ingestionPipeline;
+    private final HotWindow hotWindow;
+    private final StatDictionary statDictionary;
+    private final ClosedBucketCache bucketCache;
+    private final TopUriTracker topUriTracker;
+    private final StatPartitionManager partitionManager;
 
     @Override
     public void createStat(StatDto stat) {
-        statRepository.save(statMapper.toStat(stat));
+        accept(statMapper.toStat(stat));
     }
 
     @Override
-    public List<StatCountDto> getStats(LocalDateTime start, LocalDateTime end, Boolean unique, List<String> uris) {
+    public void createStats(List<StatDto> stats) {
+        List<Stat> hits = statMapper.toStats(stats);
+        if (ingestionPipeline.isDurable()) {
+            hits.forEach(this::accept);
+            return;
+        }
+        statDictionary.resolve(hits);
+        statBatchRepository.saveAll(hits);
+        hits.forEach(hotWindow::record);
+        hits.forEach(topUriTracker::record);
+    }
+
+    private void accept(Stat hit) {
+        boolean resolved = statDictionary.resolveCached(hit);
+        if (ingestionPipeline.submit(hit) && resolved) {
+            hotWindow.record(hit);
+            topUriTracker.record(hit);
+        }
+    }
+
+    @Override
+    public List<StatCountDto> getStats(LocalDateTime start, LocalDateTime end, Boolean unique, List<String> uris,
+                                       List<LocalDateTime> starts, Boolean approximate) {
+        if (starts != null) {
+            return toStatCounts(countSince(uriStarts(uris, starts), end, unique, approximate));
+        }
+        List<Integer> uriIds = uris == null ? null : statDictionary.findUriIds(uris);
+        start = retained(start);
+        if ((uriIds != null && uriIds.isEmpty()) || start.isAfter(end)) {
+            return Collections.emptyList();
+        }
+        return toStatCounts(count(start, end, unique, approximate, uriIds));
+    }
+
+    @Override
+    public List<StatTopCountDto> getTop(TopWindow window, int limit) {
+        if (!topUriTracker.isEnabled()) {
+            return Collections.emptyList();
+        }
+        List<SpaceSaving.Entry<StatKey>> top = topUriTracker.top(window, Math.min(limit, topUriTracker.getCapacity()));
+        List<StatKey> keys = new ArrayList<>(top.size());
+        top.forEach(entry -> keys.add(entry.getKey()));
+        statDictionary.preload(keys);
+        List<StatTopCountDto> result = new ArrayList<>(top.size());
+        for (SpaceSaving.Entry<StatKey> entry : top) {
+            result.add(new StatTopCountDto(statDictionary.appName(entry.getKey().getAppId()),
+                    statDictionary.uriName(entry.getKey().getUriId()), entry.getCount(), entry.getError()));
+        }
+        return result;
+    }
+
+    @Override
+    public Map<Long, Long> getEventViews(EventViewsRequestDto request) {
+        Integer appId = statDictionary.findAppId(request.getApp());
+        if (appId == null) {
+            return Collections.emptyMap();
+        }
+        Map<Long, Integer> uriIds = statDictionary.findEventUriIds(request.getIds());
+        Map<Integer, LocalDateTime> starts = new HashMap<>();
+        for (int i = 0; i < request.getIds().size(); i++) {
+            Integer uriId = uriIds.get(request.getIds().get(i));
+            if (uriId != null) {
+                starts.merge(uriId, request.startOf(i), StatServiceImpl::earliest);
+            }
+        }
+        Map<Long, Long> views = new HashMap<>();
+        countSince(starts, request.getEnd(), request.isUnique(), false).forEach((key, hits) -> {
+            if (key.getAppId() == appId) {
+                views.put(statDictionary.eventIdOf(key.getUriId()), hits);
+            }
+        });
+        return views;
+    }
+
+    private Map<Integer, LocalDateTime> uriStarts(List<String> uris, List<LocalDateTime> starts) {
+        if (uris == null || uris.size() != starts.size()) {
+            throw new BadRequestException("Parameter starts must have one value per uri");
+        }
+        if (starts.size() > StatCountDto.MAX_URI_STARTS) {
+            throw new BadRequestException("Parameter starts accepts at most " + StatCountDto.MAX_URI_STARTS
+                    + " uris, use POST /views");
+        }
+        Map<String, Integer> uriIds = statDictionary.findUriIdsByUri(uris);
+        Map<Integer, LocalDateTime> result = new HashMap<>();
+        for (int i = 0; i < uris.size(); i++) {
+            Integer uriId = uriIds.get(uris.get(i));
+            if (uriId != null) {
+                result.merge(uriId, starts.get(i), StatServiceImpl::earliest);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Counts hits of every uri in {@code [starts.get(uri), end]} in one pass: closed days come from the bucket cache,
+     * recent minutes from the hot window, and the remaining per-uri gaps from a single ranged scan of {@code stats}.
+     * Approximate counts have no per-range sketch scan, so they are evaluated once per distinct start instead.
+     */
+    private Map<StatKey, Long> countSince(Map<Integer, LocalDateTime> starts, LocalDateTime end, boolean unique,
+                                          boolean approximate) {
+        starts.replaceAll((uriId, start) -> retained(start));
+        starts.values().removeIf(start -> start.isAfter(end));
+        if (starts.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        if (approximate) {
+            Map<LocalDateTime, List<Integer>> uriIdsByStart = new HashMap<>();
+            starts.forEach((uriId, start) -> uriIdsByStart.computeIfAbsent(start, s -> new ArrayList<>()).add(uriId));
+            Map<StatKey, Long> counts = new HashMap<>();
+            uriIdsByStart.forEach((start, uriIds) -> counts.putAll(count(start, end, unique, true, uriIds)));
+            return counts;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime windowStart = hotWindow.getStart();
+        LocalDateTime cacheTo = earliest(RollupGranularity.DAY.floor(end), bucketCache.getClosedBefore());
+        LocalDateTime memoryTo = end.isBefore(now) ? RollupGranularity.MINUTE.floor(end) : RollupGranularity.MINUTE.floor(now).plusMinutes(1);
+        Map<Integer, LocalDateTime> cacheFrom = new HashMap<>();
+        Map<Integer, LocalDateTime> memoryFrom = new HashMap<>();
+        List<UriRange> database = new ArrayList<>();
+        List<UriRange> databaseOnly = new ArrayList<>();
+        starts.forEach((uriId, start) -> {
+            List<UriRange> ranges = new ArrayList<>();
+            LocalDateTime position = start;
+            LocalDateTime uriCacheFrom = RollupGranularity.DAY.ceil(start);
+            boolean cached = bucketCache.isEnabled() && uriCacheFrom.isBefore(cacheTo);
+            if (cached) {
+                addRange(ranges, uriId, position, uriCacheFrom);
+                cacheFrom.put(uriId, uriCacheFrom);
+                position = cacheTo;
+            }
+            LocalDateTime uriMemoryFrom = latest(RollupGranularity.MINUTE.ceil(position), windowStart);
+            boolean memory = hotWindow.isEnabled() && uriMemoryFrom.isBefore(memoryTo)
+                    && !(unique && !cached && start.isBefore(windowStart));
+            if (memory) {
+                addRange(ranges, uriId, position, uriMemoryFrom);
+                memoryFrom.put(uriId, uriMemoryFrom);
+                position = memoryTo;
+            }
+            if (!position.isAfter(end)) {
+                ranges.add(new UriRange(uriId, position, end, true));
+            }
+            (cached || memory ? database : databaseOnly).addAll(ranges);
+        });
+        if (database.stream().anyMatch(range -> touches(range, windowStart, now))
+                || databaseOnly.stream().anyMatch(range -> touches(range, windowStart, now))) {
+            ingestionPipeline.awaitPersisted();
+        }
+
+        if (!unique) {
+            database.addAll(databaseOnly);
+            Map<StatKey, Long> counts = statRollupRepository.getCounts(database);
+            if (!cacheFrom.isEmpty()) {
+                bucketCache.addCounts(cacheFrom, cacheTo, counts);
+            }
+            hotWindow.addCounts(memoryFrom, memoryTo, counts);
+            return counts;
+        }
+        Map<StatKey, Set<ByteBuffer>> ips = new HashMap<>();
+        BiConsumer<StatKey, byte[]> addIp = (key, ip) -> ips.computeIfAbsent(key, k -> new HashSet<>()).add(ByteBuffer.wrap(ip));
+        if (!cacheFrom.isEmpty()) {
+            bucketCache.forEachIp(cacheFrom, cacheTo, addIp);
+        }
+        hotWindow.forEachIp(memoryFrom, memoryTo, addIp);
+        statSketchRepository.forEachDistinctIp(database, addIp);
+        Map<StatKey, Long> counts = statSketchRepository.getDistinctCounts(databaseOnly);
+        ips.forEach((key, values) -> counts.put(key, (long) values.size()));
+        return counts;
+    }
+
+    private Map<StatKey, Long> count(LocalDateTime start, LocalDateTime end, boolean unique, boolean approximate,
+                                     List<Integer> uriIds) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime windowStart = hotWindow.getStart();
+        LocalDateTime cacheFrom = RollupGranularity.DAY.ceil(start);
+        LocalDateTime cacheTo = latest(cacheFrom, earliest(RollupGranularity.DAY.floor(end), bucketCache.getClosedBefore()));
+        boolean cached = bucketCache.isEnabled() && uriIds != null && !approximate && cacheFrom.isBefore(cacheTo);
+        LocalDateTime memoryFrom = latest(RollupGranularity.MINUTE.ceil(start), cached ? latest(windowStart, cacheTo) : windowStart);
+        LocalDateTime memoryTo = end.isBefore(now) ? RollupGranularity.MINUTE.floor(end) : RollupGranularity.MINUTE.floor(now).plusMinutes(1);
+        boolean memory = hotWindow.isEnabled() && memoryFrom.isBefore(memoryTo)
+                && !(unique && !approximate && !cached && start.isBefore(windowStart));
+        if (!cached && !memory) {
+            if (!end.isBefore(windowStart)) {
+                ingestionPipeline.awaitPersisted();
+            }
+            return countFromDatabase(start, end, unique, uriIds, approximate);
+        }
+
+        List<Interval> database = new ArrayList<>();
+        LocalDateTime position = start;
+        if (cached) {
+            addInterval(database, position, cacheFrom);
+            position = cacheTo;
+        }
+        if (memory) {
+            addInterval(database, position, memoryFrom);
+            position = memoryTo;
+        }
+        if (!position.isAfter(end)) {
+            database.add(new Interval(position, end, true));
+        }
+        if (database.stream().anyMatch(interval -> interval.touches(windowStart, now))) {
+            ingestionPipeline.awaitPersisted();
+        }
+
+        if (!unique) {
+            Map<StatKey, Long> counts = new HashMap<>();
+            if (cached) {
+                bucketCache.addCounts(cacheFrom, cacheTo, uriIds, counts);
+            }
+            if (memory) {
+                hotWindow.addCounts(memoryFrom, memoryTo, uriIds, counts);
+            }
+            for (Interval interval : database) {
+                statRollupRepository.getCounts(interval.getFrom(), interval.getTo(), interval.isInclusiveEnd(), uriIds)
+                        .forEach((key, hits) -> counts.merge(key, hits, Long::sum));
+            }
+            return counts;
+        }
+        if (approximate) {
+            Map<StatKey, HyperLogLog> sketches = new HashMap<>();
+            for (Interval interval : database) {
+                statSketchRepository.getSketches(interval.getFrom(), interval.getTo(), interval.isInclusiveEnd(), uriIds)
+                        .forEach((key, sketch) -> sketches.computeIfAbsent(key, k -> new HyperLogLog()).merge(sketch));
+            }
+            if (memory) {
+                hotWindow.forEachIp(memoryFrom, memoryTo, uriIds, (key, ip) -> sketches.computeIfAbsent(key, k -> new HyperLogLog()).add(ip));
+            }
+            return estimate(sketches);
+        }
+        Map<StatKey, Set<ByteBuffer>> ips = new HashMap<>();
+        BiConsumer<StatKey, byte[]> addIp = (key, ip) -> ips.computeIfAbsent(key, k -> new HashSet<>()).add(ByteBuffer.wrap(ip));
+        if (cached) {
+            bucketCache.forEachIp(cacheFrom, cacheTo, uriIds, addIp);
+        }
+        if (memory) {
+            hotWindow.forEachIp(memoryFrom, memoryTo, uriIds, addIp);
+        }
+        for (Interval interval : database) {
+            statSketchRepository.forEachDistinctIp(interval.getFrom(), interval.getTo(), interval.isInclusiveEnd(), uriIds, addIp);
+        }
+        Map<StatKey, Long> counts = new HashMap<>();
+        ips.forEach((key, values) -> counts.put(key, (long) values.size()));
+        return counts;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamStats(LocalDateTime start, LocalDateTime end, Boolean unique, List<String> uris,
+                            List<LocalDateTime> starts, Boolean approximate, Consumer<StatCountDto> consumer) {
+        if (starts != null) {
+            getStats(start, end, unique, uris, starts, approximate).forEach(consumer);
+            return;
+        }
+        List<Integer> uriIds = uris == null ? null : statDictionary.findUriIds(uris);
+        start = retained(start);
+        if ((uriIds != null && uriIds.isEmpty()) || start.isAfter(end)) {
+            return;
+        }
+        if (!end.isBefore(hotWindow.getStart())) {
+            ingestionPipeline.awaitPersisted();
+        }
+        if (!unique) {
+            statStreamRepository.streamCounts(start, end, uriIds, consumer);
+        } else if (!approximate) {
+            statStreamRepository.streamUniqueCounts(start, end, uriIds, consumer);
+        } else {
+            toStatCounts(countFromDatabase(start, end, true, uriIds, true)).forEach(consumer);
+        }
+    }
+
+    private Map<StatKey, Long> countFromDatabase(LocalDateTime start, LocalDateTime end, boolean unique, List<Integer> uriIds,
+                                                 boolean approximate) {
+        if (!unique) {
+            return statRollupRepository.getCounts(start, end, true, uriIds);
+        }
+        if (approximate) {
+            return estimate(statSketchRepository.getSketches(start, end, true, uriIds));
+        }
+        Map<StatKey, Long> counts = new HashMap<>();
+        for (StatIdCount count : statRepository.getStatsUniqueIp(start, end, uriIds)) {
+            counts.put(new StatKey(count.getAppId(), count.getUriId()), count.getHits());
+        }
+        return counts;
+    }
+
+    private static void addRange(List<UriRange> ranges, int uriId, LocalDateTime from, LocalDateTime to) {
+        if (from.isBefore(to)) {
+            ranges.add(new UriRange(uriId, from, to, false));
+        }
+    }
+
+    /**
+     * Moves {@code start} up to the retention cutoff, so no path reads hits that have expired from another tier.
+     */
+    private LocalDateTime retained(LocalDateTime start) {
+        LocalDateTime cutoff = partitionManager.getRetentionCutoff();
+        return cutoff != null && start.isBefore(cutoff) ? cutoff : start;
+    }
+
+    private static boolean touches(UriRange range, LocalDateTime windowStart, LocalDateTime now) {
+        return new Interval(range.getFrom(), range.getTo(), range.isInclusiveEnd()).touches(windowStart, now);
+    }
+
+    private static void addInterval(List<Interval> intervals, LocalDateTime from, LocalDateTime to) {
+        if (from.isBefore(to)) {
+            intervals.add(new Interval(from, to, false));
+        }
+    }
+
+    private static LocalDateTime earliest(LocalDateTime first, LocalDateTime second) {
+        return first.isBefore(second) ? first : second;
+    }
+
+    private static LocalDateTime latest(LocalDateTime first, LocalDateTime second) {
+        return first.isAfter(second) ? first : second;
+    }
+
+    private static Map<StatKey, Long> estimate(Map<StatKey, HyperLogLog> sketches) {
+        Map<StatKey, Long> counts = new HashMap<>();
+        sketches.forEach((key, sketch) -> counts.put(key, sketch.estimate()));
+        return counts;
+    }
+
+    private List<StatCountDto> toStatCounts(Map<StatKey, Long> counts) {
+        statDictionary.preload(counts.keySet());
+        List<StatCountDto> result = new ArrayList<>(counts.size());
+        counts.forEach((key, hits) -> result.add(new StatCountDto(statDictionary.appName(key.getAppId()),
+                statDictionary.uriName(key.getUriId()), hits)));
+        result.sort(Comparator.comparingLong(StatCountDto::getHits).reversed());
+        return result;
+    }
+
+    @Value
+    private static class Interval {
+        LocalDateTime from;
+        LocalDateTime to;
+        boolean inclusiveEnd;
 
-        return unique ? statRepository.getStatsUniqueIp(start, end, uris) : statRepository.getStatsAllIp(start, end, uris);
+        boolean touches(LocalDateTime windowStart, LocalDateTime now) {
+            return (to.isAfter(windowStart) || (inclusiveEnd && to.equals(windowStart))) && !from.isAfter(now);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,167 @@
+package ru.practicum.topk;
+
+import lombok.Value;
+
+import java.util.*;
+
+/**
+ * Space-Saving heavy-hitters summary (Metwally et al.) of at most {@code capacity} counters, kept in an indexed
+ * min-heap so that an update costs O(log capacity). A monitored key's count never underestimates its true count and
+ * overestimates it by at most the key's {@code error}. For a summary of N hits every error is at most N / capacity,
+ * so any key with more than N / capacity hits is guaranteed to be monitored.
+ * <p>
+ * Summaries merge as in Agarwal et al., "Mergeable summaries": a key missing on one side is charged that side's
+ * {@link #floor()}, the highest count an unmonitored key could have there, both in its count and in its error.
+ * The error bound of a merged summary is the sum of the bounds of its parts. Not thread-safe.
+ */
+public class SpaceSaving<K> {
+    private final int capacity;
+    private final Map<K, Counter<K>> counters;
+    private final Counter<K>[] heap;
+    private int size;
+    private long dropped;
+
+    @SuppressWarnings("unchecked")
+    public SpaceSaving(int capacity) {
+        this.capacity = capacity;
+        this.counters = new HashMap<>();
+        this.heap = new Counter[capacity];
+    }
+
+    public void add(K key) {
+        Counter<K> counter = counters.get(key);
+        if (counter != null) {
+            counter.count++;
+            siftDown(counter.index);
+            return;
+        }
+        long floor = floor();
+        if (size < capacity) {
+            counter = new Counter<>(key, floor + 1, floor, size);
+            heap[size++] = counter;
+            counters.put(key, counter);
+            siftUp(counter.index);
+            return;
+        }
+        counter = heap[0];
+        counters.remove(counter.key);
+        counter.key = key;
+        counter.count = floor + 1;
+        counter.error = floor;
+        counters.put(key, counter);
+        siftDown(0);
+    }
+
+    /**
+     * Upper bound of the count of any key that is not monitored.
+     */
+    public long floor() {
+        return size == capacity ? Math.max(dropped, heap[0].count) : dropped;
+    }
+
+    public SpaceSaving<K> merge(SpaceSaving<K> other) {
+        long floor = floor();
+        long otherFloor = other.floor();
+        Map<K, Entry<K>> union = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            Counter<K> counter = heap[i];
+            Counter<K> match = other.counters.get(counter.key);
+            union.put(counter.key, match != null
+                    ? new Entry<>(counter.key, counter.count + match.count, counter.error + match.error)
+                    : new Entry<>(counter.key, counter.count + otherFloor, counter.error + otherFloor));
+        }
+        for (int i = 0; i < other.size; i++) {
+            Counter<K> counter = other.heap[i];
+            if (!counters.containsKey(counter.key)) {
+                union.put(counter.key, new Entry<>(counter.key, counter.count + floor, counter.error + floor));
+            }
+        }
+        List<Entry<K>> entries = new ArrayList<>(union.values());
+        entries.sort(Comparator.comparingLong(Entry<K>::getCount).reversed());
+        SpaceSaving<K> merged = new SpaceSaving<>(capacity);
+        merged.dropped = floor + otherFloor;
+        for (int i = 0; i < entries.size(); i++) {
+            Entry<K> entry = entries.get(i);
+            if (i < capacity) {
+                Counter<K> counter = new Counter<>(entry.getKey(), entry.getCount(), entry.getError(), i);
+                merged.heap[i] = counter;
+                merged.counters.put(entry.getKey(), counter);
+            } else {
+                merged.dropped = Math.max(merged.dropped, entry.getCount());
+                break;
+            }
+        }
+        merged.size = Math.min(entries.size(), capacity);
+        for (int i = merged.size / 2 - 1; i >= 0; i--) {
+            merged.siftDown(i);
+        }
+        return merged;
+    }
+
+    public List<Entry<K>> top(int limit) {
+        List<Entry<K>> entries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            entries.add(new Entry<>(heap[i].key, heap[i].count, heap[i].error));
+        }
+        entries.sort(Comparator.comparingLong(Entry<K>::getCount).reversed());
+        return entries.size() > limit ? entries.subList(0, limit) : entries;
+    }
+
+    private void siftUp(int index) {
+        Counter<K> counter = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (heap[parent].count <= counter.count) {
+                break;
+            }
+            place(heap[parent], index);
+            index = parent;
+        }
+        place(counter, index);
+    }
+
+    private void siftDown(int index) {
+        Counter<K> counter = heap[index];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1].count < heap[child].count) {
+                child++;
+            }
+            if (counter.count <= heap[child].count) {
+                break;
+            }
+            place(heap[child], index);
+            index = child;
+        }
+        place(counter, index);
+    }
+
+    private void place(Counter<K> counter, int index) {
+        heap[index] = counter;
+        counter.index = index;
+    }
+
+    @Value
+    public static class Entry<K> {
+        K key;
+        long count;
+        long error;
+    }
+
+    private static final class Counter<K> {
+        private K key;
+        private long count;
+        private long error;
+        private int index;
+
+        private Counter(K key, long count, long error, int index) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+            this.index = index;
+        }
+    }
+}
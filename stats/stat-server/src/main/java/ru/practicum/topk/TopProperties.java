@@ -0,0 +1,14 @@
+package ru.practicum.topk;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "stat-server.top")
+public class TopProperties {
+    private boolean enabled = true;
+    private int capacity = 1000;
+    private int stripes = Runtime.getRuntime().availableProcessors();
+}
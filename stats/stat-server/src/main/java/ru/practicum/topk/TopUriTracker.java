@@ -0,0 +1,164 @@
+package ru.practicum.topk;
+
+import org.springframework.stereotype.Component;
+import ru.practicum.model.Stat;
+import ru.practicum.model.StatKey;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Keeps a {@link SpaceSaving} summary of the most hit (app, uri) pairs per minute for the last hour and per hour
+ * for the last day, updated as hits are accepted. A query merges the closed buckets of its window once per bucket
+ * change and then only the open bucket, so it costs O(capacity) regardless of traffic. Like the hot window it only
+ * knows hits received since startup.
+ * <p>
+ * Each bucket is split into {@code stripes} summaries picked by the recording thread, so concurrent ingest threads
+ * rarely contend for the same lock. A read merges the stripes; the merged error bound is the sum of the stripe
+ * bounds, N / capacity overall, the same as for a single summary.
+ */
+@Component
+public class TopUriTracker {
+    private final TopProperties properties;
+    private final Ring minutes;
+    private final Ring hours;
+
+    public TopUriTracker(TopProperties properties) {
+        this.properties = properties;
+        this.minutes = new Ring(60, 60);
+        this.hours = new Ring(60 * 60, 24);
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public int getCapacity() {
+        return properties.getCapacity();
+    }
+
+    public void record(Stat stat) {
+        if (!properties.isEnabled() || stat.getIp() == null) {
+            return;
+        }
+        StatKey key = new StatKey(stat.getAppId(), stat.getUriId());
+        long second = stat.getTimestamp().toEpochSecond(ZoneOffset.UTC);
+        minutes.record(key, second);
+        hours.record(key, second);
+    }
+
+    public List<SpaceSaving.Entry<StatKey>> top(TopWindow window, int limit) {
+        Ring ring = window == TopWindow.HOUR ? minutes : hours;
+        return ring.summary().top(limit);
+    }
+
+    private static long now() {
+        return LocalDateTime.now().toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private final class Ring {
+        private final long seconds;
+        private final AtomicReferenceArray<Bucket> buckets;
+        private final AtomicLong lateHits = new AtomicLong();
+        private volatile Closed closed;
+
+        private Ring(long seconds, int length) {
+            this.seconds = seconds;
+            this.buckets = new AtomicReferenceArray<>(length);
+        }
+
+        private void record(StatKey key, long second) {
+            long index = second / seconds;
+            long current = now() / seconds;
+            if (index > current || index <= current - buckets.length()) {
+                return;
+            }
+            int slot = (int) (index % buckets.length());
+            Bucket bucket = buckets.get(slot);
+            while (bucket == null || bucket.index < index) {
+                Bucket fresh = new Bucket(index, properties.getCapacity(), Math.max(1, properties.getStripes()));
+                if (buckets.compareAndSet(slot, bucket, fresh)) {
+                    bucket = fresh;
+                } else {
+                    bucket = buckets.get(slot);
+                }
+            }
+            if (bucket.index != index) {
+                return;
+            }
+            bucket.add(key);
+            // a bucket that closed while the hit was being added must be merged again
+            if (index < now() / seconds) {
+                lateHits.incrementAndGet();
+            }
+        }
+
+        private SpaceSaving<StatKey> summary() {
+            long current = now() / seconds;
+            long late = lateHits.get();
+            Closed merged = closed;
+            if (merged == null || merged.current != current || merged.late != late) {
+                SpaceSaving<StatKey> summary = new SpaceSaving<>(properties.getCapacity());
+                for (long index = current - buckets.length() + 1; index < current; index++) {
+                    summary = merge(summary, index);
+                }
+                merged = new Closed(current, late, summary);
+                closed = merged;
+            }
+            return merge(merged.summary, current);
+        }
+
+        private SpaceSaving<StatKey> merge(SpaceSaving<StatKey> summary, long index) {
+            Bucket bucket = buckets.get((int) (index % buckets.length()));
+            if (bucket == null || bucket.index != index) {
+                return summary;
+            }
+            return bucket.mergeInto(summary);
+        }
+    }
+
+    private static final class Bucket {
+        private final long index;
+        private final List<SpaceSaving<StatKey>> stripes;
+
+        private Bucket(long index, int capacity, int stripes) {
+            this.index = index;
+            this.stripes = new ArrayList<>(stripes);
+            for (int i = 0; i < stripes; i++) {
+                this.stripes.add(new SpaceSaving<>(capacity));
+            }
+        }
+
+        private void add(StatKey key) {
+            SpaceSaving<StatKey> stripe = stripes.get((int) (Thread.currentThread().getId() % stripes.size()));
+            synchronized (stripe) {
+                stripe.add(key);
+            }
+        }
+
+        private SpaceSaving<StatKey> mergeInto(SpaceSaving<StatKey> summary) {
+            for (SpaceSaving<StatKey> stripe : stripes) {
+                synchronized (stripe) {
+                    summary = summary.merge(stripe);
+                }
+            }
+            return summary;
+        }
+    }
+
+    private static final class Closed {
+        private final long current;
+        private final long late;
+        private final SpaceSaving<StatKey> summary;
+
+        private Closed(long current, long late, SpaceSaving<StatKey> summary) {
+            this.current = current;
+            this.late = late;
+            this.summary = summary;
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package ru.practicum.topk;
+
+public enum TopWindow {
+    HOUR,
+    DAY
+}
@@ -0,0 +1,423 @@
+package ru.practicum.wal;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.practicum.dto.StatDto;
+import ru.practicum.model.Stat;
+import ru.practicum.other.IpAddresses;
+import ru.practicum.repository.WalCheckpointRepository;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of accepted hits kept in memory-mapped segment files named after their first sequence number.
+ * A record is {@code [length][crc32][sequence][payload]} and a rolled segment ends with a {@code -1} length.
+ * The payload refers to the app and uri by dictionary id when it was already known on append, and carries the name
+ * itself (with a {@code 0} id) otherwise; the replaying thread interns such names before writing the hit.
+ * An appended hit survives a crash of the process as soon as {@link #append} returns and a crash of the host once
+ * the segment is forced, at most {@code forceInterval} later.
+ * <p>
+ * Hits are read back by a single replaying thread, which reports the last sequence committed to the database through
+ * {@link #applied}; the same sequence is stored in {@code stat_wal_checkpoints} in the transaction that wrote the hits.
+ * On startup the tail of the log is recovered up to the first torn record and reading resumes after the stored
+ * checkpoint, so records that were already applied are skipped rather than inserted twice.
+ * <p>
+ * Deleted segments are unmapped right away instead of holding their mapping until the buffer is collected;
+ * only the replaying thread deletes segments, never the one it is reading or the one being appended to, and a
+ * segment is released under its own lock so that a concurrent force of a just rolled segment cannot touch it.
+ */
+@Slf4j
+@Component
+public class HitLog {
+    private static final String SUFFIX = ".wal";
+    private static final int HEADER = Integer.BYTES + Integer.BYTES + Long.BYTES;
+    private static final int END_OF_SEGMENT = -1;
+    private static final int UNRESOLVED = 0;
+    private static final int MAX_NAME_BYTES = 3 * Math.max(StatDto.MAX_APP_LENGTH, StatDto.MAX_URI_LENGTH);
+    private static final int MAX_PAYLOAD = (Integer.BYTES + Short.BYTES + MAX_NAME_BYTES) * 2 + 1 + IpAddresses.LENGTH
+            + Long.BYTES + Integer.BYTES;
+    private static final Unmapper UNMAPPER = Unmapper.create();
+    private final WalProperties properties;
+    private final WalCheckpointRepository checkpointRepository;
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private final ByteBuffer record = ByteBuffer.allocate(HEADER + MAX_PAYLOAD);
+    private final CRC32 crc = new CRC32();
+    private Path directory;
+    private Segment head;
+    private volatile long lastSequence;
+    private long backlog;
+    private Segment readSegment;
+    private int readOffset;
+    private long readSequence;
+    private Thread syncer;
+    private volatile boolean running;
+
+    public HitLog(WalProperties properties, WalCheckpointRepository checkpointRepository) {
+        this.properties = properties;
+        this.checkpointRepository = checkpointRepository;
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public String getName() {
+        return properties.getName();
+    }
+
+    /**
+     * Number of hits found in the log on startup that were not applied yet.
+     */
+    public long getBacklog() {
+        return backlog;
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        directory = Paths.get(properties.getDirectory());
+        Files.createDirectories(directory);
+        long applied = checkpointRepository.getSequence(properties.getName());
+        List<Path> files;
+        try (Stream<Path> list = Files.list(directory)) {
+            files = list.filter(file -> file.getFileName().toString().endsWith(SUFFIX)).sorted().collect(Collectors.toList());
+        }
+        long next = -1;
+        for (Path file : files) {
+            long first = Long.parseLong(file.getFileName().toString().replace(SUFFIX, ""));
+            if (next != -1 && first != next) {
+                log.warn("Discarding write-ahead log segment {}: expected sequence {}", file, next);
+                Files.delete(file);
+                continue;
+            }
+            Segment segment = map(file, first, (int) Files.size(file));
+            next = segment.recover();
+            segments.put(first, segment);
+        }
+        lastSequence = segments.isEmpty() ? applied : next - 1;
+        if (lastSequence < applied) {
+            log.warn("Write-ahead log ends at {} before checkpoint {}, starting a new log", lastSequence, applied);
+            for (Segment segment : segments.values()) {
+                Files.delete(segment.path);
+                release(segment);
+            }
+            segments.clear();
+            lastSequence = applied;
+        }
+        if (segments.isEmpty()) {
+            segments.put(applied + 1, create(applied + 1));
+        }
+        head = segments.lastEntry().getValue();
+        backlog = lastSequence - applied;
+        readSequence = applied + 1;
+        Map.Entry<Long, Segment> start = segments.floorEntry(readSequence);
+        readSegment = start != null ? start.getValue() : segments.firstEntry().getValue();
+        readOffset = 0;
+        applied(applied);
+        log.info("Opened write-ahead log {} with {} segments, {} hits to replay", directory, segments.size(), backlog);
+
+        running = true;
+        syncer = new Thread(this::syncLoop, "stat-wal-sync");
+        syncer.setDaemon(true);
+        syncer.start();
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        if (syncer == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(syncer);
+        syncer.join(TimeUnit.SECONDS.toMillis(10));
+        force();
+    }
+
+    /**
+     * Appends the hit and returns {@code false} if the log has reached {@code maxBytes}.
+     */
+    public synchronized boolean append(Stat stat) {
+        long sequence = lastSequence + 1;
+        record.clear();
+        record.position(HEADER);
+        putName(stat.getAppId(), stat.getApp());
+        putName(stat.getUriId(), stat.getUri());
+        byte[] ip = stat.getIp();
+        record.put((byte) (ip == null ? 0 : ip.length));
+        if (ip != null) {
+            record.put(ip);
+        }
+        record.putLong(stat.getTimestamp().toEpochSecond(ZoneOffset.UTC)).putInt(stat.getTimestamp().getNano());
+        int size = record.position();
+        record.putInt(0, size - HEADER);
+        record.putLong(Integer.BYTES * 2, sequence);
+        crc.reset();
+        crc.update(record.array(), Integer.BYTES * 2, size - Integer.BYTES * 2);
+        record.putInt(Integer.BYTES, (int) crc.getValue());
+
+        if (head.end + size > head.buffer.capacity()) {
+            if ((long) (segments.size() + 1) * properties.getSegmentBytes() > properties.getMaxBytes()) {
+                return false;
+            }
+            if (head.end + Integer.BYTES <= head.buffer.capacity()) {
+                head.buffer.putInt(head.end, END_OF_SEGMENT);
+            }
+            head.buffer.force();
+            Segment next = create(sequence);
+            segments.put(sequence, next);
+            head = next;
+        }
+        head.appender.position(head.end);
+        head.appender.put(record.array(), 0, size);
+        head.end += size;
+        lastSequence = sequence;
+        return true;
+    }
+
+    /**
+     * Reads up to {@code max} hits following the last one read into {@code batch}. Only called by the replaying thread.
+     */
+    public int read(List<Stat> batch, int max) {
+        int read = 0;
+        long last = lastSequence;
+        while (read < max && readSequence <= last) {
+            ByteBuffer buffer = readSegment.buffer;
+            if (readOffset + HEADER > buffer.capacity() || buffer.getInt(readOffset) <= 0) {
+                readSegment = segments.higherEntry(readSegment.first).getValue();
+                readOffset = 0;
+                continue;
+            }
+            int length = buffer.getInt(readOffset);
+            long sequence = buffer.getLong(readOffset + Integer.BYTES * 2);
+            if (sequence >= readSequence) {
+                batch.add(decode(buffer, readOffset + HEADER));
+                readSequence = sequence + 1;
+                read++;
+            }
+            readOffset += HEADER + length;
+        }
+        return read;
+    }
+
+    /**
+     * Sequence of the last hit returned by {@link #read}.
+     */
+    public long getReadSequence() {
+        return readSequence - 1;
+    }
+
+    /**
+     * Deletes the segments whose hits are all committed up to {@code sequence}.
+     */
+    public void applied(long sequence) {
+        Map.Entry<Long, Segment> first;
+        while ((first = segments.firstEntry()) != null) {
+            Map.Entry<Long, Segment> next = segments.higherEntry(first.getKey());
+            if (next == null || next.getKey() > sequence + 1) {
+                return;
+            }
+            Segment segment = first.getValue();
+            if (segment == readSegment) {
+                readSegment = next.getValue();
+                readOffset = 0;
+            }
+            segments.remove(first.getKey());
+            try {
+                Files.deleteIfExists(segment.path);
+            } catch (IOException e) {
+                log.warn("Failed to delete write-ahead log segment {}", segment.path, e);
+            }
+            release(segment);
+        }
+    }
+
+    private void putName(Integer id, String name) {
+        if (id != null) {
+            record.putInt(id);
+            return;
+        }
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_NAME_BYTES) {
+            throw new IllegalArgumentException("Name is too long for the write-ahead log: " + bytes.length + " bytes");
+        }
+        record.putInt(UNRESOLVED).putShort((short) bytes.length).put(bytes);
+    }
+
+    private void syncLoop() {
+        while (running) {
+            LockSupport.parkNanos(this, properties.getForceInterval().toNanos());
+            force();
+        }
+    }
+
+    private void force() {
+        Segment segment;
+        synchronized (this) {
+            segment = head;
+        }
+        synchronized (segment) {
+            if (!segment.released) {
+                segment.buffer.force();
+            }
+        }
+    }
+
+    private static void release(Segment segment) {
+        synchronized (segment) {
+            segment.released = true;
+            UNMAPPER.unmap(segment.buffer);
+        }
+    }
+
+    private Segment create(long first) {
+        try {
+            return map(directory.resolve(String.format("%020d", first) + SUFFIX), first, properties.getSegmentBytes());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Segment map(Path path, long first, int size) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            return new Segment(path, first, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        }
+    }
+
+    private static Stat decode(ByteBuffer buffer, int offset) {
+        ByteBuffer payload = buffer.duplicate();
+        payload.position(offset);
+        Stat stat = new Stat();
+        int appId = payload.getInt();
+        if (appId != UNRESOLVED) {
+            stat.setAppId(appId);
+        } else {
+            stat.setApp(getName(payload));
+        }
+        int uriId = payload.getInt();
+        if (uriId != UNRESOLVED) {
+            stat.setUriId(uriId);
+        } else {
+            stat.setUri(getName(payload));
+        }
+        int ipLength = payload.get();
+        if (ipLength > 0) {
+            byte[] ip = new byte[ipLength];
+            payload.get(ip);
+            stat.setIp(ip);
+        }
+        long seconds = payload.getLong();
+        stat.setTimestamp(LocalDateTime.ofEpochSecond(seconds, payload.getInt(), ZoneOffset.UTC));
+        return stat;
+    }
+
+    private static String getName(ByteBuffer payload) {
+        byte[] bytes = new byte[payload.getShort()];
+        payload.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Releases a mapping through {@code sun.misc.Unsafe#invokeCleaner}, leaving it to the garbage collector
+     * where that is not available.
+     */
+    private static final class Unmapper {
+        private final Object unsafe;
+        private final Method invokeCleaner;
+
+        private Unmapper(Object unsafe, Method invokeCleaner) {
+            this.unsafe = unsafe;
+            this.invokeCleaner = invokeCleaner;
+        }
+
+        private static Unmapper create() {
+            try {
+                Class<?> type = Class.forName("sun.misc.Unsafe");
+                Field field = type.getDeclaredField("theUnsafe");
+                field.setAccessible(true);
+                return new Unmapper(field.get(null), type.getMethod("invokeCleaner", ByteBuffer.class));
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                log.warn("Write-ahead log segments will be unmapped by the garbage collector: {}", e.toString());
+                return new Unmapper(null, null);
+            }
+        }
+
+        private void unmap(MappedByteBuffer buffer) {
+            if (invokeCleaner == null) {
+                return;
+            }
+            try {
+                invokeCleaner.invoke(unsafe, buffer);
+            } catch (ReflectiveOperationException e) {
+                log.warn("Failed to unmap a write-ahead log segment", e);
+            }
+        }
+    }
+
+    private static final class Segment {
+        private final Path path;
+        private final long first;
+        private final MappedByteBuffer buffer;
+        private final ByteBuffer appender;
+        private int end;
+        private boolean released;
+
+        private Segment(Path path, long first, MappedByteBuffer buffer) {
+            this.path = path;
+            this.first = first;
+            this.buffer = buffer;
+            this.appender = buffer.duplicate();
+        }
+
+        /**
+         * Finds the end of the valid records and returns the sequence that follows them.
+         */
+        private long recover() {
+            CRC32 checksum = new CRC32();
+            long next = first;
+            end = 0;
+            while (end + HEADER <= buffer.capacity()) {
+                int length = buffer.getInt(end);
+                if (length <= 0 || length > MAX_PAYLOAD || end + HEADER + length > buffer.capacity()
+                        || buffer.getLong(end + Integer.BYTES * 2) != next) {
+                    break;
+                }
+                checksum.reset();
+                for (int i = end + Integer.BYTES * 2; i < end + HEADER + length; i++) {
+                    checksum.update(buffer.get(i));
+                }
+                if ((int) checksum.getValue() != buffer.getInt(end + Integer.BYTES)) {
+                    break;
+                }
+                end += HEADER + length;
+                next++;
+            }
+            return next;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package ru.practicum.wal;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "stat-server.wal")
+public class WalProperties {
+    private boolean enabled = true;
+    private String directory = "wal";
+    private String name = "default";
+    private int segmentBytes = 64 * 1024 * 1024;
+    private long maxBytes = 4L * 1024 * 1024 * 1024;
+    private Duration forceInterval = Duration.ofMillis(50);
+    private Duration maxRetryDelay = Duration.ofSeconds(5);
+    private int maxReplayAttempts = 5;
+}
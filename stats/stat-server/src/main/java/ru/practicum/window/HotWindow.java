@@ -0,0 +1,148 @@
+package ru.practicum.window;
+
+import org.springframework.stereotype.Component;
+import ru.practicum.model.Stat;
+import ru.practicum.model.StatKey;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+
+/**
+ * Sliding window of the most recent minutes of hits kept in memory: one slot per minute, each holding
+ * per-(app, uri) striped counters and the set of distinct ips. Slots are replaced, not cleared, when the
+ * window moves on, so recording never takes a lock. Minutes before the service started are never complete
+ * in memory, so the window only starts at the first full minute after startup.
+ */
+@Component
+public class HotWindow {
+    private final WindowProperties properties;
+    private final AtomicReferenceArray<Slot> slots;
+    private final long firstCompleteMinute;
+
+    public HotWindow(WindowProperties properties) {
+        this.properties = properties;
+        this.slots = new AtomicReferenceArray<>(Math.max(1, properties.getMinutes()));
+        this.firstCompleteMinute = toMinute(LocalDateTime.now()) + 1;
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public LocalDateTime getStart() {
+        long start = Math.max(firstCompleteMinute, toMinute(LocalDateTime.now()) - slots.length() + 1);
+        return toTime(start);
+    }
+
+    public void record(Stat stat) {
+        if (!properties.isEnabled() || stat.getIp() == null) {
+            return;
+        }
+        long minute = toMinute(stat.getTimestamp());
+        long now = toMinute(LocalDateTime.now());
+        if (minute > now || minute <= now - slots.length()) {
+            return;
+        }
+        int index = (int) (minute % slots.length());
+        Slot slot = slots.get(index);
+        while (slot == null || slot.minute < minute) {
+            Slot fresh = new Slot(minute);
+            if (slots.compareAndSet(index, slot, fresh)) {
+                slot = fresh;
+            } else {
+                slot = slots.get(index);
+            }
+        }
+        if (slot.minute != minute) {
+            return;
+        }
+        Counter counter = slot.counters.computeIfAbsent(new StatKey(stat.getAppId(), stat.getUriId()), key -> new Counter());
+        counter.hits.increment();
+        counter.ips.add(ByteBuffer.wrap(stat.getIp()));
+    }
+
+    public void addCounts(LocalDateTime from, LocalDateTime to, List<Integer> uriIds, Map<StatKey, Long> target) {
+        forEachCounter(from, to, uriIds, (key, counter) -> target.merge(key, counter.hits.sum(), Long::sum));
+    }
+
+    public void addCounts(Map<Integer, LocalDateTime> fromByUri, LocalDateTime to, Map<StatKey, Long> target) {
+        forEachCounter(fromByUri, to, (key, counter) -> target.merge(key, counter.hits.sum(), Long::sum));
+    }
+
+    public void forEachIp(LocalDateTime from, LocalDateTime to, List<Integer> uriIds, BiConsumer<StatKey, byte[]> consumer) {
+        forEachCounter(from, to, uriIds, (key, counter) -> counter.ips.forEach(ip -> consumer.accept(key, ip.array())));
+    }
+
+    public void forEachIp(Map<Integer, LocalDateTime> fromByUri, LocalDateTime to, BiConsumer<StatKey, byte[]> consumer) {
+        forEachCounter(fromByUri, to, (key, counter) -> counter.ips.forEach(ip -> consumer.accept(key, ip.array())));
+    }
+
+    private void forEachCounter(LocalDateTime from, LocalDateTime to, List<Integer> uriIds, BiConsumer<StatKey, Counter> consumer) {
+        Set<Integer> uriFilter = uriIds == null ? null : new HashSet<>(uriIds);
+        forEachCounter(toMinute(from), toMinute(to), (key, minute) -> uriFilter == null || uriFilter.contains(key.getUriId()), consumer);
+    }
+
+    private void forEachCounter(Map<Integer, LocalDateTime> fromByUri, LocalDateTime to, BiConsumer<StatKey, Counter> consumer) {
+        if (fromByUri.isEmpty()) {
+            return;
+        }
+        Map<Integer, Long> fromMinutes = new HashMap<>();
+        fromByUri.forEach((uriId, from) -> fromMinutes.put(uriId, toMinute(from)));
+        long from = Collections.min(fromMinutes.values());
+        forEachCounter(from, toMinute(to), (key, minute) -> {
+            Long uriFrom = fromMinutes.get(key.getUriId());
+            return uriFrom != null && minute >= uriFrom;
+        }, consumer);
+    }
+
+    private void forEachCounter(long fromMinute, long toMinute, BiPredicate<StatKey, Long> filter,
+                                BiConsumer<StatKey, Counter> consumer) {
+        for (long minute = fromMinute; minute < toMinute; minute++) {
+            Slot slot = slots.get((int) (minute % slots.length()));
+            if (slot == null || slot.minute != minute) {
+                continue;
+            }
+            long slotMinute = minute;
+            slot.counters.forEach((key, counter) -> {
+                if (filter.test(key, slotMinute)) {
+                    consumer.accept(key, counter);
+                }
+            });
+        }
+    }
+
+    private static long toMinute(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+
+    private static LocalDateTime toTime(long minute) {
+        return LocalDateTime.ofEpochSecond(minute * 60, 0, ZoneOffset.UTC).truncatedTo(ChronoUnit.MINUTES);
+    }
+
+    private static final class Slot {
+        private final long minute;
+        private final ConcurrentHashMap<StatKey, Counter> counters = new ConcurrentHashMap<>();
+
+        private Slot(long minute) {
+            this.minute = minute;
+        }
+    }
+
+    private static final class Counter {
+        private final LongAdder hits = new LongAdder();
+        private final Set<ByteBuffer> ips = ConcurrentHashMap.newKeySet();
+    }
+}
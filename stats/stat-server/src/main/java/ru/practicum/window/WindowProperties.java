@@ -0,0 +1,13 @@
+package ru.practicum.window;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "stat-server.window")
+public class WindowProperties {
+    private boolean enabled = true;
+    private int minutes = 60;
+}
@@ -1,10 +1,103 @@
-DROP TABLE IF EXISTS stats;
+-- every table is kept across restarts: hits already applied from the write-ahead log are not replayed again
+-- once their checkpoint is stored, so dropping stats or its rollups would lose them
 
-CREATE TABLE IF NOT EXISTS stats (
-    id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
-    app VARCHAR(50) NOT NULL,
+CREATE TABLE IF NOT EXISTS stat_apps (
+    id SERIAL PRIMARY KEY,
+    name VARCHAR(50) NOT NULL,
+    CONSTRAINT uq_stat_apps_name UNIQUE (name)
+);
+
+CREATE TABLE IF NOT EXISTS stat_uris (
+    id SERIAL PRIMARY KEY,
     uri VARCHAR(150) NOT NULL,
-    ip VARCHAR(15),
+    event_id BIGINT GENERATED ALWAYS AS (
+        CASE WHEN uri ~ '^/events/[1-9][0-9]{0,17}$' THEN substring(uri FROM 9)::BIGINT END) STORED,
+    CONSTRAINT uq_stat_uris_uri UNIQUE (uri)
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS ux_stat_uris_event_id ON stat_uris (event_id) WHERE event_id IS NOT NULL;
+
+CREATE SEQUENCE IF NOT EXISTS stats_id_seq;
+
+CREATE TABLE IF NOT EXISTS stats (
+    id BIGINT NOT NULL DEFAULT nextval('stats_id_seq'),
+    app_id INTEGER NOT NULL,
+    uri_id INTEGER NOT NULL,
+    ip BYTEA CHECK (octet_length(ip) = 16),
     timestamp TIMESTAMP WITHOUT TIME ZONE NOT NULL,
-    CONSTRAINT pk_stats PRIMARY KEY (id)
-);
\ No newline at end of file
+    CONSTRAINT pk_stats PRIMARY KEY (id, timestamp)
+) PARTITION BY RANGE (timestamp);
+
+CREATE TABLE IF NOT EXISTS stats_default PARTITION OF stats DEFAULT;
+
+CREATE TABLE IF NOT EXISTS stats_minute (
+    app_id INTEGER NOT NULL,
+    uri_id INTEGER NOT NULL,
+    bucket TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    hits BIGINT NOT NULL,
+    CONSTRAINT pk_stats_minute PRIMARY KEY (app_id, uri_id, bucket)
+);
+
+CREATE INDEX IF NOT EXISTS ix_stats_minute_bucket ON stats_minute (bucket);
+
+CREATE TABLE IF NOT EXISTS stats_hour (
+    app_id INTEGER NOT NULL,
+    uri_id INTEGER NOT NULL,
+    bucket TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    hits BIGINT NOT NULL,
+    CONSTRAINT pk_stats_hour PRIMARY KEY (app_id, uri_id, bucket)
+);
+
+CREATE INDEX IF NOT EXISTS ix_stats_hour_bucket ON stats_hour (bucket);
+
+CREATE TABLE IF NOT EXISTS stats_day (
+    app_id INTEGER NOT NULL,
+    uri_id INTEGER NOT NULL,
+    bucket TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    hits BIGINT NOT NULL,
+    CONSTRAINT pk_stats_day PRIMARY KEY (app_id, uri_id, bucket)
+);
+
+CREATE INDEX IF NOT EXISTS ix_stats_day_bucket ON stats_day (bucket);
+
+CREATE TABLE IF NOT EXISTS stats_hour_sketch (
+    app_id INTEGER NOT NULL,
+    uri_id INTEGER NOT NULL,
+    bucket TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    sketch BYTEA NOT NULL,
+    CONSTRAINT pk_stats_hour_sketch PRIMARY KEY (app_id, uri_id, bucket)
+);
+
+CREATE INDEX IF NOT EXISTS ix_stats_hour_sketch_bucket ON stats_hour_sketch (bucket);
+
+CREATE TABLE IF NOT EXISTS stats_day_sketch (
+    app_id INTEGER NOT NULL,
+    uri_id INTEGER NOT NULL,
+    bucket TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    sketch BYTEA NOT NULL,
+    CONSTRAINT pk_stats_day_sketch PRIMARY KEY (app_id, uri_id, bucket)
+);
+
+CREATE INDEX IF NOT EXISTS ix_stats_day_sketch_bucket ON stats_day_sketch (bucket);
+
+CREATE INDEX IF NOT EXISTS ix_stats_timestamp ON stats (timestamp);
+CREATE INDEX IF NOT EXISTS ix_stats_uri_timestamp ON stats (uri_id, timestamp);
+
+CREATE TABLE IF NOT EXISTS stat_wal_checkpoints (
+    log VARCHAR(100) PRIMARY KEY,
+    sequence BIGINT NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS stat_wal_quarantine (
+    log VARCHAR(100) NOT NULL,
+    sequence BIGINT NOT NULL,
+    app_id INTEGER,
+    uri_id INTEGER,
+    app VARCHAR(50),
+    uri VARCHAR(150),
+    ip BYTEA,
+    timestamp TIMESTAMP WITHOUT TIME ZONE,
+    error TEXT,
+    quarantined_at TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT now(),
+    CONSTRAINT pk_stat_wal_quarantine PRIMARY KEY (log, sequence)
+);
@@ -0,0 +1,114 @@
+package ru.practicum.rollup;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HyperLogLogTest {
+    /**
+     * Three standard errors of 1.04 / sqrt(4096), so a correct sketch fails this bound about once in 400 runs
+     * of a random input; the inputs here are fixed.
+     */
+    private static final double MAX_RELATIVE_ERROR = 3 * 1.04 / Math.sqrt(HyperLogLog.REGISTERS);
+
+    @Test
+    void estimatesWithinTheDocumentedErrorAcrossCardinalities() {
+        for (int distinct : new int[]{1, 10, 100, 1_000, 10_000, 100_000, 1_000_000}) {
+            HyperLogLog sketch = sketchOf(0, distinct);
+
+            assertWithinBound(distinct, sketch.estimate());
+        }
+    }
+
+    @Test
+    void ignoresRepeatedValues() {
+        HyperLogLog sketch = sketchOf(0, 5_000);
+        byte[] before = sketch.toBytes();
+        for (int i = 0; i < 5_000; i++) {
+            sketch.add(ip(i));
+        }
+
+        assertArrayEquals(before, sketch.toBytes());
+    }
+
+    @Test
+    void mergeEqualsSketchOfTheUnion() {
+        HyperLogLog left = sketchOf(0, 60_000);
+        HyperLogLog right = sketchOf(40_000, 100_000);
+        left.merge(right);
+
+        assertArrayEquals(sketchOf(0, 100_000).toBytes(), left.toBytes());
+        assertWithinBound(100_000, left.estimate());
+    }
+
+    @Test
+    void emptySketchRoundTripsAsNoBytes() {
+        HyperLogLog empty = new HyperLogLog();
+
+        assertEquals(0, empty.toBytes().length);
+        assertEquals(0, empty.estimate());
+        assertEquals(0, HyperLogLog.fromBytes(null).estimate());
+        assertEquals(0, HyperLogLog.fromBytes(new byte[0]).estimate());
+    }
+
+    @Test
+    void smallSketchRoundTripsSparsely() {
+        HyperLogLog sketch = sketchOf(0, 50);
+        byte[] bytes = sketch.toBytes();
+
+        assertTrue(bytes.length < HyperLogLog.REGISTERS);
+        assertEquals(0, bytes.length % 3);
+        assertArrayEquals(bytes, HyperLogLog.fromBytes(bytes).toBytes());
+        assertEquals(sketch.estimate(), HyperLogLog.fromBytes(bytes).estimate());
+    }
+
+    @Test
+    void largeSketchRoundTripsDensely() {
+        HyperLogLog sketch = sketchOf(0, 50_000);
+        byte[] bytes = sketch.toBytes();
+
+        assertEquals(HyperLogLog.REGISTERS, bytes.length);
+        assertArrayEquals(bytes, HyperLogLog.fromBytes(bytes).toBytes());
+        assertEquals(sketch.estimate(), HyperLogLog.fromBytes(bytes).estimate());
+    }
+
+    @Test
+    void sparseAndDenseFormsMergeAlike() {
+        HyperLogLog sparse = HyperLogLog.fromBytes(sketchOf(0, 30).toBytes());
+        HyperLogLog dense = HyperLogLog.fromBytes(sketchOf(30, 40_000).toBytes());
+        sparse.merge(dense);
+
+        assertArrayEquals(sketchOf(0, 40_000).toBytes(), sparse.toBytes());
+    }
+
+    @Test
+    void rejectsMalformedBytes() {
+        assertThrows(IllegalArgumentException.class, () -> HyperLogLog.fromBytes(new byte[4]));
+        assertThrows(IllegalArgumentException.class, () -> HyperLogLog.fromBytes(new byte[]{0x10, 0x00, 1}));
+        assertThrows(IllegalArgumentException.class, () -> HyperLogLog.fromBytes(new byte[]{0, 1, 0}));
+        assertThrows(IllegalArgumentException.class, () -> HyperLogLog.fromBytes(new byte[]{0, 1, 60}));
+    }
+
+    private static HyperLogLog sketchOf(int from, int to) {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int i = from; i < to; i++) {
+            sketch.add(ip(i));
+        }
+        return sketch;
+    }
+
+    private static byte[] ip(int value) {
+        return ByteBuffer.allocate(16).putShort(10, (short) 0xffff).putInt(12, value).array();
+    }
+
+    private static void assertWithinBound(long expected, long estimate) {
+        double error = Math.abs(estimate - expected) / (double) expected;
+        assertTrue(error <= MAX_RELATIVE_ERROR,
+                () -> "estimate " + estimate + " of " + expected + " is off by " + error);
+    }
+}
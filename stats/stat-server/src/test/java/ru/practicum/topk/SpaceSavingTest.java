@@ -0,0 +1,95 @@
+package ru.practicum.topk;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpaceSavingTest {
+    private static final int CAPACITY = 50;
+
+    @Test
+    void countsExactlyWhileUnderCapacity() {
+        SpaceSaving<String> summary = new SpaceSaving<>(CAPACITY);
+        summary.add("a");
+        summary.add("b");
+        summary.add("a");
+
+        List<SpaceSaving.Entry<String>> top = summary.top(10);
+        assertEquals(List.of(new SpaceSaving.Entry<>("a", 2, 0), new SpaceSaving.Entry<>("b", 1, 0)), top);
+        assertEquals(0, summary.floor());
+    }
+
+    @Test
+    void boundsErrorsOfOneSummary() {
+        Map<Integer, Long> exact = new HashMap<>();
+        SpaceSaving<Integer> summary = new SpaceSaving<>(CAPACITY);
+        long total = feed(summary, exact, new Random(1), 100_000);
+
+        assertInvariants(summary, exact, total);
+    }
+
+    @Test
+    void boundsErrorsOfMergedStripes() {
+        Map<Integer, Long> exact = new HashMap<>();
+        Random random = new Random(2);
+        long total = 0;
+        SpaceSaving<Integer> merged = new SpaceSaving<>(CAPACITY);
+        for (int stripe = 0; stripe < 4; stripe++) {
+            SpaceSaving<Integer> summary = new SpaceSaving<>(CAPACITY);
+            total += feed(summary, exact, random, 25_000 + 5_000 * stripe);
+            merged = merged.merge(summary);
+        }
+
+        assertInvariants(merged, exact, total);
+    }
+
+    @Test
+    void mergeOfDisjointSummariesUnderCapacityIsExact() {
+        SpaceSaving<String> left = new SpaceSaving<>(CAPACITY);
+        SpaceSaving<String> right = new SpaceSaving<>(CAPACITY);
+        left.add("a");
+        left.add("a");
+        right.add("b");
+        right.add("a");
+
+        assertEquals(List.of(new SpaceSaving.Entry<>("a", 3, 0), new SpaceSaving.Entry<>("b", 1, 0)),
+                left.merge(right).top(10));
+    }
+
+    /**
+     * Feeds a skewed stream over 5000 keys, so a few keys are heavy and most are rare.
+     */
+    private static long feed(SpaceSaving<Integer> summary, Map<Integer, Long> exact, Random random, int hits) {
+        for (int i = 0; i < hits; i++) {
+            int key = (int) Math.floor(Math.pow(random.nextDouble(), 3) * 5_000);
+            summary.add(key);
+            exact.merge(key, 1L, Long::sum);
+        }
+        return hits;
+    }
+
+    private static void assertInvariants(SpaceSaving<Integer> summary, Map<Integer, Long> exact, long total) {
+        long bound = total / CAPACITY;
+        List<SpaceSaving.Entry<Integer>> top = summary.top(CAPACITY);
+        Map<Integer, SpaceSaving.Entry<Integer>> monitored = new HashMap<>();
+        for (SpaceSaving.Entry<Integer> entry : top) {
+            long actual = exact.getOrDefault(entry.getKey(), 0L);
+            assertTrue(entry.getCount() >= actual, () -> entry + " underestimates " + actual);
+            assertTrue(entry.getCount() - entry.getError() <= actual, () -> entry + " error does not cover " + actual);
+            assertTrue(entry.getError() <= bound, () -> entry + " error exceeds " + bound);
+            monitored.put(entry.getKey(), entry);
+        }
+        assertTrue(summary.floor() <= bound, () -> "floor " + summary.floor() + " exceeds " + bound);
+        exact.forEach((key, count) -> {
+            if (count > bound) {
+                assertTrue(monitored.containsKey(key), () -> "heavy key " + key + " with " + count + " hits is missing");
+            }
+        });
+    }
+}